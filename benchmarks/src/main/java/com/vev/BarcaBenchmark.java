@@ -0,0 +1,97 @@
+package com.vev;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+// Custo de Barca.ocupaLugar(String) com códigos válidos, inválidos e com a
+// barca lotada
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BarcaBenchmark {
+
+    // Sequência de códigos que respeita a distribuição de peso: 101 lugares
+    // nas filas da frente e depois 100 nas filas de trás
+    static final String[] VALIDOS = sequenciaValida();
+
+    static final String[] INVALIDOS = {
+        "G01A01", "F1A1", "F123A123", "", "F91A01", "F01A91", "F01A20", "F61A01", "f01a01", "F01B01"
+    };
+
+    private Barca lotada;
+    private int nextInvalido;
+    private int nextValido;
+
+    static String[] sequenciaValida() {
+        List<String> codigos = new ArrayList<>();
+        adiciona(codigos, 0, 20, 101);
+        adiciona(codigos, 40, 59, 100);
+        return codigos.toArray(new String[0]);
+    }
+
+    // A regex só aceita os dígitos 0-8, então filas/assentos com 9 ficam de fora
+    private static void adiciona(List<String> codigos, int filaInicial, int filaFinal, int quantidade) {
+        int adicionados = 0;
+        for (int fila = filaInicial; fila <= filaFinal && adicionados < quantidade; fila++) {
+            for (int assento = 0; assento < Barca.ASSENTOS_POR_FILA && adicionados < quantidade; assento++) {
+                if (fila % 10 == 9 || assento % 10 == 9) {
+                    continue;
+                }
+                codigos.add(String.format("F%02dA%02d", fila, assento));
+                adicionados++;
+            }
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void lota() {
+        lotada = new Barca();
+        for (int fila = 0; fila < Barca.FILAS; fila++) {
+            for (int assento = 0; assento < Barca.ASSENTOS_POR_FILA; assento++) {
+                lotada.ocupaLugar(fila, assento);
+            }
+        }
+    }
+
+    // Cada invocação embarca a sequência válida inteira em uma barca nova
+    @Benchmark
+    @OperationsPerInvocation(201)
+    public void validos(Blackhole bh) {
+        Barca barca = new Barca();
+        for (String codigo : VALIDOS) {
+            bh.consume(barca.ocupaLugar(codigo));
+        }
+    }
+
+    @Benchmark
+    public int invalidos() {
+        String codigo = INVALIDOS[nextInvalido];
+        nextInvalido = nextInvalido + 1 == INVALIDOS.length ? 0 : nextInvalido + 1;
+        return lotada.ocupaLugar(codigo);
+    }
+
+    @Benchmark
+    public int barcaLotada() {
+        String codigo = VALIDOS[nextValido];
+        nextValido = nextValido + 1 == VALIDOS.length ? 0 : nextValido + 1;
+        return lotada.ocupaLugar(codigo);
+    }
+}
@@ -0,0 +1,87 @@
+package com.vev;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+// BarcaConcorrente comparada com a Barca protegida por um lock global
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BarcaConcorrenteBenchmark {
+
+    // Barca compartilhada por todas as threads do benchmark, recriada a cada
+    // iteração: no começo há embarques de verdade, depois predominam as
+    // tentativas em lugares já ocupados, como em um pico de check-in
+    @State(Scope.Benchmark)
+    public static class Compartilhada {
+        Barca barca;
+        BarcaConcorrente concorrente;
+
+        @Setup(Level.Iteration)
+        public void cria() {
+            barca = new Barca();
+            concorrente = new BarcaConcorrente();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Terminal {
+        int next;
+
+        String proximo() {
+            String codigo = BarcaBenchmark.VALIDOS[next];
+            next = next + 1 == BarcaBenchmark.VALIDOS.length ? 0 : next + 1;
+            return codigo;
+        }
+    }
+
+    @Benchmark
+    @Threads(4)
+    public int concorrente4Threads(Compartilhada compartilhada, Terminal terminal) {
+        return compartilhada.concorrente.ocupaLugar(terminal.proximo());
+    }
+
+    @Benchmark
+    @Threads(4)
+    public int lockGlobal4Threads(Compartilhada compartilhada, Terminal terminal) {
+        Barca barca = compartilhada.barca;
+        synchronized (barca) {
+            return barca.ocupaLugar(terminal.proximo());
+        }
+    }
+
+    // Custo sem disputa: embarca a sequência válida inteira em uma barca nova
+    @Benchmark
+    @OperationsPerInvocation(201)
+    public void concorrenteSemDisputa(Blackhole bh) {
+        BarcaConcorrente barca = new BarcaConcorrente();
+        for (String codigo : BarcaBenchmark.VALIDOS) {
+            bh.consume(barca.ocupaLugar(codigo));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(201)
+    public void barcaSemDisputa(Blackhole bh) {
+        Barca barca = new Barca();
+        for (String codigo : BarcaBenchmark.VALIDOS) {
+            bh.consume(barca.ocupaLugar(codigo));
+        }
+    }
+}
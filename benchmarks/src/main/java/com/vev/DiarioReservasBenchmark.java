@@ -0,0 +1,80 @@
+package com.vev;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Gravação e reconstrução do diário de reservas. Os resultados são por
+// entrada; compare reconstroi com BarcaBenchmark.validos, que é o custo de
+// refazer a mesma ocupação passando pelos códigos e pelas regras.
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DiarioReservasBenchmark {
+
+    static final int ENTRADAS = 1 << 20;
+
+    private Path dir;
+    private DiarioReservas cheio;
+    private DiarioReservas gravacao;
+    private int proximo;
+
+    @Setup(Level.Trial)
+    public void cria() throws IOException {
+        dir = Files.createTempDirectory("diario-bench");
+        // Diário com ENTRADAS assentos aleatórios (com repetições, como um
+        // diário que também acumula vários dias de uma mesma barca)
+        try (DiarioReservas diario = DiarioReservas.abre(dir.resolve("cheio.diario"), 1 << 16)) {
+            Random random = new Random(42);
+            for (int i = 0; i < ENTRADAS; i++) {
+                diario.registra(random.nextInt(Barca.FILAS), random.nextInt(Barca.ASSENTOS_POR_FILA));
+            }
+        }
+        cheio = DiarioReservas.abre(dir.resolve("cheio.diario"));
+        gravacao = DiarioReservas.abre(dir.resolve("gravacao.diario"));
+    }
+
+    @TearDown(Level.Trial)
+    public void apaga() throws IOException {
+        cheio.close();
+        gravacao.close();
+        Files.delete(dir.resolve("cheio.diario"));
+        Files.delete(dir.resolve("gravacao.diario"));
+        Files.delete(dir);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ENTRADAS)
+    public long[] reconstroi() throws IOException {
+        long[] assentos = new long[Barca.FILAS];
+        cheio.reconstroi(assentos);
+        return assentos;
+    }
+
+    // Inclui a gravação do lote e o force a cada LOTE_PADRAO / 2 entradas
+    @Benchmark
+    public void registra() throws IOException {
+        int indice = proximo;
+        proximo = indice + 1 == DiarioReservas.ASSENTOS ? 0 : indice + 1;
+        gravacao.registra(indice / Barca.ASSENTOS_POR_FILA, indice % Barca.ASSENTOS_POR_FILA);
+    }
+}
@@ -0,0 +1,143 @@
+package com.vev;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Custo de Ranking.add para diferentes padrões de entrada e capacidades
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RankingAddBenchmark {
+
+    // Quantidade de registros pré-gerados; o fluxo é percorrido em ciclo e o
+    // ranking recomeça vazio a cada volta
+    private static final int STREAM_SIZE = 1 << 20;
+
+    @Param({"20", "1000", "100000"})
+    int capacity;
+
+    // ASCENDING: todo registro entra e desce até o fundo do heap
+    // DESCENDING: depois que enche, todo registro é rejeitado pelo piso
+    // RANDOM: mistura de aceitos e rejeitados
+    // ADVERSARIAL: depois que enche, todo registro é aceito e desce da raiz até
+    // uma folha, mas sem ser o maior de todos: o caminho no heap muda a cada
+    // registro, o que o fluxo crescente (sempre o mesmo padrão) não faz
+    @Param({"ASCENDING", "DESCENDING", "RANDOM", "ADVERSARIAL"})
+    String stream;
+
+    private Record[] records;
+    private Ranking ranking;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void generate() {
+        Random random = new Random(42);
+        if (stream.equals("ADVERSARIAL")) {
+            records = adversarial(random);
+            return;
+        }
+        records = new Record[STREAM_SIZE];
+        for (int i = 0; i < STREAM_SIZE; i++) {
+            int score;
+            switch (stream) {
+                case "ASCENDING":
+                    score = i;
+                    break;
+                case "DESCENDING":
+                    score = STREAM_SIZE - i;
+                    break;
+                case "RANDOM":
+                    score = random.nextInt();
+                    break;
+                default:
+                    throw new IllegalArgumentException(stream);
+            }
+            records[i] = new Record("P" + i, score);
+        }
+    }
+
+    // Simula o min-heap do Ranking (mesmo desempate por ordem de chegada) e,
+    // depois que ele enche, escolhe cada score logo acima da folha no fim do
+    // caminho pelos filhos menores: o registro é maior que todos os nós desse
+    // caminho e desce até o fundo, mas fica abaixo do resto do heap
+    private Record[] adversarial(Random random) {
+        Record[] out = new Record[STREAM_SIZE];
+        int[] heap = new int[capacity];
+        int[] order = new int[capacity];
+        for (int i = 0; i < STREAM_SIZE; i++) {
+            int score;
+            if (i < capacity) {
+                score = random.nextInt(1 << 20);
+                int k = i;
+                while (k > 0 && worse(score, i, heap[(k - 1) >>> 1], order[(k - 1) >>> 1])) {
+                    heap[k] = heap[(k - 1) >>> 1];
+                    order[k] = order[(k - 1) >>> 1];
+                    k = (k - 1) >>> 1;
+                }
+                heap[k] = score;
+                order[k] = i;
+            } else {
+                int leaf = 0;
+                while (2 * leaf + 1 < capacity) {
+                    int child = 2 * leaf + 1;
+                    if (child + 1 < capacity && worse(heap[child + 1], order[child + 1], heap[child], order[child])) {
+                        child++;
+                    }
+                    leaf = child;
+                }
+                score = heap[leaf] + 1 + random.nextInt(1000);
+                int k = 0;
+                while (2 * k + 1 < capacity) {
+                    int child = 2 * k + 1;
+                    if (child + 1 < capacity && worse(heap[child + 1], order[child + 1], heap[child], order[child])) {
+                        child++;
+                    }
+                    heap[k] = heap[child];
+                    order[k] = order[child];
+                    k = child;
+                }
+                heap[k] = score;
+                order[k] = i;
+            }
+            out[i] = new Record("P" + i, score);
+        }
+        return out;
+    }
+
+    private static boolean worse(int a, int seqA, int b, int seqB) {
+        return a != b ? a < b : seqA > seqB;
+    }
+
+    @Setup(Level.Iteration)
+    public void reset() {
+        ranking = new Ranking(capacity);
+        next = 0;
+    }
+
+    // Ao fim do fluxo o ranking recomeça vazio: sem isso, a partir da segunda
+    // volta ASCENDING e RANDOM mediriam quase só rejeições pelo piso
+    @Benchmark
+    public boolean add() {
+        if (next == STREAM_SIZE) {
+            ranking = new Ranking(capacity);
+            next = 0;
+        }
+        return ranking.add(records[next++]);
+    }
+}
@@ -0,0 +1,69 @@
+package com.vev;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+// Leituras de um ranking cheio: getScore, bestScore e worstScore
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RankingReadBenchmark {
+
+    @Param({"20", "1000", "100000"})
+    int capacity;
+
+    private Ranking ranking;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void fill() {
+        Random random = new Random(42);
+        ranking = new Ranking(capacity);
+        for (int i = 0; i < capacity * 2; i++) {
+            ranking.add(new Record("P" + i, random.nextInt()));
+        }
+        // deixa a visão ordenada pronta: mede só a leitura
+        ranking.getScore(0);
+    }
+
+    @Benchmark
+    public Record getScore() {
+        Record record = ranking.getScore(next);
+        next = next + 1 == capacity ? 0 : next + 1;
+        return record;
+    }
+
+    @Benchmark
+    public void scanAll(Blackhole bh) {
+        for (int i = 0; i < ranking.numRecords(); i++) {
+            bh.consume(ranking.getScore(i));
+        }
+    }
+
+    @Benchmark
+    public Record bestScore() {
+        return ranking.bestScore();
+    }
+
+    @Benchmark
+    public Record worstScore() {
+        return ranking.worstScore();
+    }
+}
@@ -1,30 +1,144 @@
 package com.vev;
 
-import java.util.regex.Pattern;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 public class Barca {
     public static final int ASSENTOS_POR_FILA = 20;
     public static final int FILAS = 60;
-    private boolean[][] assentos;
+    // Assentos e filas que têm código FxxAyy: o dígito 9 não é aceito, então
+    // a fila 9 ou o assento 19, por exemplo, nunca são oferecidos
+    static final long ASSENTOS_COM_CODIGO = CodigoAssento.enderecaveis(ASSENTOS_POR_FILA);
+    static final long FILAS_COM_CODIGO = CodigoAssento.enderecaveis(FILAS);
+    // Um long por fila: o bit j indica que o assento j está ocupado
+    private long[] assentos;
+    // Índice de lugares livres: o bit i indica que a fila i tem código e ainda
+    // tem lugar livre com código
+    private long filasComLugar;
     private int qtdadeAssentosOcupados;
+    // Diário onde cada ocupação é registrada, ou null se a barca não é persistida
+    private final DiarioReservas diario;
+    // Roda que vence os lugares segurados, ou null se a barca não aceita reservas temporárias
+    private final RodaTemporizadora roda;
+    // Lugares segurados (código empacotado) e o temporizador de cada um
+    private Map<Integer, RodaTemporizadora.Temporizador> segurados;
+    // null quando as métricas estão desligadas
+    private MetricasBarca metricas;
 
     public Barca() {
-        assentos = new boolean[FILAS][];
-        for (int i = 0; i < FILAS; i++) {
-            assentos[i] = new boolean[ASSENTOS_POR_FILA];
-            for (int j = 0; j < ASSENTOS_POR_FILA; j++) {
-                assentos[i][j] = false;
+        assentos = new long[FILAS];
+        filasComLugar = FILAS_COM_CODIGO;
+        qtdadeAssentosOcupados = 0;
+        diario = null;
+        roda = null;
+    }
+
+    // Barca que aceita seguraLugar; os lugares segurados vencem na roda
+    public Barca(RodaTemporizadora roda) {
+        assentos = new long[FILAS];
+        filasComLugar = FILAS_COM_CODIGO;
+        qtdadeAssentosOcupados = 0;
+        diario = null;
+        this.roda = roda;
+    }
+
+    // Barca com o estado reconstruído a partir do diário; as próximas
+    // ocupações são registradas nele
+    public Barca(DiarioReservas diario) throws IOException {
+        this(diario, null);
+    }
+
+    // Como Barca(DiarioReservas), aceitando também seguraLugar se a roda não
+    // for null. Só ocupações confirmadas vão para o diário: lugares segurados
+    // não sobrevivem a um reinício.
+    public Barca(DiarioReservas diario, RodaTemporizadora roda) throws IOException {
+        assentos = new long[FILAS];
+        diario.reconstroi(assentos);
+        filasComLugar = 0;
+        qtdadeAssentosOcupados = 0;
+        for (int fila = 0; fila < FILAS; fila++) {
+            qtdadeAssentosOcupados += Long.bitCount(assentos[fila]);
+            if ((assentos[fila] & ASSENTOS_COM_CODIGO) != ASSENTOS_COM_CODIGO) {
+                filasComLugar |= (1L << fila) & FILAS_COM_CODIGO;
             }
         }
-        qtdadeAssentosOcupados = 0;
+        this.diario = diario;
+        this.roda = roda;
     }
 
     // Método auxiliar projetado para facilitar testes
     protected void ocupaLugar(int fila, int assento) {
-        assentos[fila][assento] = true;
+        marca(fila, assento);
+    }
+
+    // Registra a ocupação no diário e marca o assento. Registra antes de mudar
+    // o estado: se o registro falhar, o lugar continua livre. O registro só
+    // grava no arquivo quando o lote enche; uma ocupação aceita ainda pode se
+    // perder numa queda, ou ficar pendente se um flush posterior falhar.
+    private void marca(int fila, int assento) {
+        registra(fila, assento);
+        liga(fila, assento);
+    }
+
+    private void registra(int fila, int assento) {
+        if (diario != null) {
+            try {
+                diario.registra(fila, assento);
+            } catch (IOException e) {
+                throw new IllegalStateException("não foi possível registrar a reserva no diário", e);
+            }
+        }
+    }
+
+    // Registra no diário a ocupação de todos os lugares do grupo (códigos
+    // empacotados) antes de ligar qualquer bit. O diário registra o grupo
+    // inteiro ou nada: se falhar, nenhum lugar do grupo é ocupado.
+    private void registraGrupo(int[] grupo) {
+        if (diario != null) {
+            try {
+                diario.registraTodos(grupo);
+            } catch (IOException e) {
+                throw new IllegalStateException("não foi possível registrar a reserva no diário", e);
+            }
+        }
+    }
+
+    // Marca o assento como ocupado e mantém o índice de filas com lugar
+    private void liga(int fila, int assento) {
+        long linha = assentos[fila] | 1L << assento;
+        assentos[fila] = linha;
+        if ((linha & ASSENTOS_COM_CODIGO) == ASSENTOS_COM_CODIGO) {
+            filasComLugar &= ~(1L << fila);
+        }
         qtdadeAssentosOcupados++;
     }
 
+    // Libera um assento ocupado; a fila volta para o índice de filas com lugar
+    private void desmarca(int fila, int assento) {
+        if (diario != null) {
+            try {
+                diario.registraLiberacao(fila, assento);
+            } catch (IOException e) {
+                throw new IllegalStateException("não foi possível registrar a liberação no diário", e);
+            }
+        }
+        desliga(fila, assento);
+    }
+
+    private void desliga(int fila, int assento) {
+        assentos[fila] &= ~(1L << assento);
+        if ((ASSENTOS_COM_CODIGO >>> assento & 1) != 0) {
+            filasComLugar |= (1L << fila) & FILAS_COM_CODIGO;
+        }
+        qtdadeAssentosOcupados--;
+    }
+
     /*
      * 0 – Identificador de assento inválido
      * 1 – Assento ocupado
@@ -32,33 +146,303 @@ public class Barca {
      * 3 – Ok, assento atribuído ao passageiro.
      */
     public int ocupaLugar(String assentoInformado) {
+        return ocupaLugar((CharSequence) assentoInformado);
+    }
+
+    public int ocupaLugar(CharSequence assentoInformado) {
+        MetricasBarca m = metricas;
+        if (m == null) {
+            return ocupaLugarDecodificado(CodigoAssento.decodifica(assentoInformado));
+        }
+        long inicio = System.nanoTime();
+        int status = ocupaLugarDecodificado(CodigoAssento.decodifica(assentoInformado));
+        m.registra(status, System.nanoTime() - inicio);
+        return status;
+    }
+
+    // Código lido direto de um buffer (por exemplo, da rede), sem criar String
+    public int ocupaLugar(ByteBuffer buffer, int offset, int length) {
+        MetricasBarca m = metricas;
+        if (m == null) {
+            return ocupaLugarDecodificado(CodigoAssento.decodifica(buffer, offset, length));
+        }
+        long inicio = System.nanoTime();
+        int status = ocupaLugarDecodificado(CodigoAssento.decodifica(buffer, offset, length));
+        m.registra(status, System.nanoTime() - inicio);
+        return status;
+    }
+
+    // Liga (ou, com null, desliga) as métricas de ocupaLugar
+    public void setMetricas(MetricasBarca metricas) {
+        this.metricas = metricas;
+    }
+
+    public MetricasBarca getMetricas() {
+        return metricas;
+    }
+
+    private int ocupaLugarDecodificado(int codigo) {
+        int status = verificaLugar(codigo, qtdadeAssentosOcupados);
+        if (status == 3) {
+            // Ocupa o assento
+            marca(CodigoAssento.fila(codigo), CodigoAssento.assento(codigo));
+        }
+        return status;
+    }
+
+    // Status que ocupaLugar daria ao código com a barca tendo o número de
+    // passageiros informado, sem ocupar o lugar
+    private int verificaLugar(int codigo, int ocupados) {
         // Verifica se é um assento valido
-        if (Pattern.matches("[F][0-8]{2}[A][0-8]{2}", assentoInformado) == false) {
+        if (codigo == CodigoAssento.INVALIDO) {
             return 0;
         }
-        int fila = Integer.parseInt(assentoInformado.substring(1, 3));
-        int assento = Integer.parseInt(assentoInformado.substring(4, 6));
-        if (fila < 0 || fila > 60) {
+        int fila = CodigoAssento.fila(codigo);
+        int assento = CodigoAssento.assento(codigo);
+        if (fila < 0 || fila >= FILAS) {
             return 0;
         }
-        if (assento < 0 || assento >= 20) {
+        if (assento < 0 || assento >= ASSENTOS_POR_FILA) {
             return 0;
         }
         // Verifica se o assento já não está ocupado
-        if (assentos[fila][assento] == true) {
+        if ((assentos[fila] & (1L << assento)) != 0) {
             return 1;
         }
+        // Verifica a distribuição de peso
+        return regraDistribuicao(ocupados, fila);
+    }
+
+    // Libera o assento (cancelamento). Retorna false se o código é inválido ou
+    // o assento não estava ocupado. A fase da distribuição de peso sai do
+    // número de passageiros, então a próxima ocupação já usa a regra certa.
+    public boolean liberaLugar(CharSequence assentoInformado) {
+        int codigo = CodigoAssento.decodifica(assentoInformado);
+        if (codigo == CodigoAssento.INVALIDO) {
+            return false;
+        }
+        int fila = CodigoAssento.fila(codigo);
+        int assento = CodigoAssento.assento(codigo);
+        if (fila >= FILAS || assento >= ASSENTOS_POR_FILA || (assentos[fila] & (1L << assento)) == 0) {
+            return false;
+        }
+        if (segurados != null && segurados.containsKey(codigo)) {
+            // Lugar só segurado: não está no diário, basta soltar
+            segurados.remove(codigo).cancela();
+            desliga(fila, assento);
+        } else {
+            desmarca(fila, assento);
+        }
+        return true;
+    }
+
+    // Segura o lugar por ttl com as mesmas regras de ocupaLugar (e os mesmos
+    // códigos de retorno). O lugar segurado conta como ocupado até ser
+    // confirmado, cancelado ou vencer na roda, quando volta a ficar livre.
+    public int seguraLugar(CharSequence assentoInformado, Duration ttl) {
+        if (roda == null) {
+            throw new IllegalStateException("barca sem roda temporizadora");
+        }
+        int codigo = CodigoAssento.decodifica(assentoInformado);
+        int status = verificaLugar(codigo, qtdadeAssentosOcupados);
+        if (status != 3) {
+            return status;
+        }
+        liga(CodigoAssento.fila(codigo), CodigoAssento.assento(codigo));
+        if (segurados == null) {
+            segurados = new HashMap<>();
+        }
+        segurados.put(codigo, roda.agenda(ttl, () -> vence(codigo)));
+        return 3;
+    }
+
+    private void vence(int codigo) {
+        segurados.remove(codigo);
+        desliga(CodigoAssento.fila(codigo), CodigoAssento.assento(codigo));
+    }
+
+    // Transforma o lugar segurado em ocupação. Retorna false se o lugar não
+    // está segurado (nunca foi, já venceu ou foi cancelado).
+    public boolean confirma(CharSequence assentoInformado) {
+        int codigo = CodigoAssento.decodifica(assentoInformado);
+        RodaTemporizadora.Temporizador temporizador = segurados == null ? null : segurados.get(codigo);
+        if (temporizador == null) {
+            return false;
+        }
+        // Se a gravação no diário falhar, o lugar continua segurado
+        registra(CodigoAssento.fila(codigo), CodigoAssento.assento(codigo));
+        segurados.remove(codigo);
+        temporizador.cancela();
+        return true;
+    }
+
+    // Solta o lugar segurado antes do prazo. Retorna false se o lugar não está
+    // segurado.
+    public boolean cancela(CharSequence assentoInformado) {
+        int codigo = CodigoAssento.decodifica(assentoInformado);
+        RodaTemporizadora.Temporizador temporizador = segurados == null ? null : segurados.remove(codigo);
+        if (temporizador == null) {
+            return false;
+        }
+        temporizador.cancela();
+        desliga(CodigoAssento.fila(codigo), CodigoAssento.assento(codigo));
+        return true;
+    }
+
+    // Quantidade de lugares segurados ainda não confirmados
+    public int lugaresSegurados() {
+        return segurados == null ? 0 : segurados.size();
+    }
+
+    // Libera todos os assentos informados e retorna quantos estavam ocupados
+    public int liberaLugares(Collection<? extends CharSequence> assentosInformados) {
+        int liberados = 0;
+        for (CharSequence assento : assentosInformados) {
+            if (liberaLugar(assento)) {
+                liberados++;
+            }
+        }
+        return liberados;
+    }
+
+    // Filas em que um novo passageiro pode sentar, pela distribuição de peso,
+    // com a barca tendo o número de passageiros informado
+    private static long filasPermitidas(int ocupados) {
+        if (ocupados <= 100) {
+            return Zona.DIANTEIRA.mascara();
+        }
+        if (ocupados <= 200) {
+            return Zona.TRASEIRA.mascara();
+        }
+        return Zona.TODAS_AS_FILAS;
+    }
+
+    // Ocupa o primeiro lugar livre permitido pela distribuição de peso atual e
+    // retorna o seu código (FxxAyy), ou null se não houver lugar permitido.
+    // Lugares sem código (com o dígito 9) não são oferecidos.
+    // Custo constante: uma consulta no índice de filas e outra no bitmap da fila.
+    public String ocupaProximoLugar() {
+        long candidatas = filasComLugar & filasPermitidas(qtdadeAssentosOcupados);
+        if (candidatas == 0) {
+            return null;
+        }
+        int fila = Long.numberOfTrailingZeros(candidatas);
+        int assento = Long.numberOfTrailingZeros(~assentos[fila] & ASSENTOS_COM_CODIGO);
+        marca(fila, assento);
+        return CodigoAssento.formata(CodigoAssento.empacota(fila, assento));
+    }
+
+    // Ocupa n lugares vizinhos numa mesma fila (todos ou nenhum) e retorna os
+    // códigos, em ordem de assento, ou uma lista vazia se não houver fila
+    // permitida com n lugares livres seguidos. Só lugares com código contam:
+    // um grupo não atravessa o assento 9 nem usa o 19, então cabem no máximo 9.
+    public List<String> reservaGrupo(int n) {
+        if (n < 1 || n > ASSENTOS_POR_FILA) {
+            throw new IllegalArgumentException("tamanho de grupo inválido: " + n);
+        }
+        // Os passageiros do grupo entram com c, c+1, ..., c+n-1 já embarcados;
+        // como as fases não se sobrepõem, basta a regra valer nas duas pontas
+        long candidatas = filasComLugar
+                & filasPermitidas(qtdadeAssentosOcupados)
+                & filasPermitidas(qtdadeAssentosOcupados + n - 1);
+        while (candidatas != 0) {
+            int fila = Long.numberOfTrailingZeros(candidatas);
+            candidatas &= candidatas - 1;
+            long livres = ~assentos[fila] & ASSENTOS_COM_CODIGO;
+            // Bit j de inicios ligado: assentos j a j+n-1 livres
+            long inicios = livres;
+            for (int k = 1; k < n && inicios != 0; k++) {
+                inicios &= livres >>> k;
+            }
+            if (inicios != 0) {
+                int primeiro = Long.numberOfTrailingZeros(inicios);
+                int[] grupo = new int[n];
+                for (int k = 0; k < n; k++) {
+                    grupo[k] = CodigoAssento.empacota(fila, primeiro + k);
+                }
+                registraGrupo(grupo);
+                List<String> codigos = new ArrayList<>(n);
+                for (int codigo : grupo) {
+                    liga(fila, CodigoAssento.assento(codigo));
+                    codigos.add(CodigoAssento.formata(codigo));
+                }
+                return codigos;
+            }
+        }
+        return new ArrayList<>();
+    }
+
+    // Ocupa todos os lugares informados ou nenhum. Cada posição do resultado
+    // tem o status que ocupaLugar daria ao código se os anteriores do grupo já
+    // tivessem sido ocupados; o grupo só é efetivado se todos forem 3.
+    public int[] reservaGrupo(List<String> codigosInformados) {
+        int n = codigosInformados.size();
+        int[] codigos = new int[n];
+        int[] status = new int[n];
+        boolean aceito = true;
+        for (int i = 0; i < n; i++) {
+            codigos[i] = CodigoAssento.decodifica(codigosInformados.get(i));
+            status[i] = verificaLugar(codigos[i], qtdadeAssentosOcupados + i);
+            // Lugar repetido no próprio grupo conta como ocupado
+            for (int j = 0; j < i && status[i] == 3; j++) {
+                if (codigos[j] == codigos[i]) {
+                    status[i] = 1;
+                }
+            }
+            aceito &= status[i] == 3;
+        }
+        if (aceito) {
+            registraGrupo(codigos);
+            for (int codigo : codigos) {
+                liga(CodigoAssento.fila(codigo), CodigoAssento.assento(codigo));
+            }
+        }
+        return status;
+    }
+
+    // Regra de distribuição de peso para ocupar um lugar na fila com a barca
+    // tendo o número de passageiros informado. Retorna 1 ou 2 (mesmos códigos
+    // de ocupaLugar) se a fila está bloqueada, ou 3 se o lugar pode ser ocupado.
+    static int regraDistribuicao(int ocupados, int fila) {
         // Se tem até 100 passageiros, verifica se fila <= 20
-        if (qtdadeAssentosOcupados <= 100 && fila > 20) {
+        if (ocupados <= 100 && fila > 20) {
             return 1;
         }
         // Se tem mais de 100 e até de 200 passageiros, verifica se fila >= 40
-        if (qtdadeAssentosOcupados > 100 && qtdadeAssentosOcupados <= 200 && fila < 40) {
+        if (ocupados > 100 && ocupados <= 200 && fila < 40) {
             return 2;
         }
-        // Ocupa o assento
-        assentos[fila][assento] = true;
-        qtdadeAssentosOcupados++;
         return 3;
     }
+
+    // Primeiro lugar livre com código da zona (menor fila, menor assento), empacotado como
+    // em CodigoAssento, ou CodigoAssento.INVALIDO se a zona estiver lotada
+    public int proximoLugarLivre(Zona zona) {
+        long candidatas = filasComLugar & zona.mascara();
+        if (candidatas == 0) {
+            return CodigoAssento.INVALIDO;
+        }
+        int fila = Long.numberOfTrailingZeros(candidatas);
+        return CodigoAssento.empacota(fila, Long.numberOfTrailingZeros(~assentos[fila] & ASSENTOS_COM_CODIGO));
+    }
+
+    // Quantidade de lugares livres entre as filas de e ate (inclusive)
+    public int lugaresLivresNasFilas(int de, int ate) {
+        if (de < 0 || ate >= FILAS || de > ate) {
+            throw new IllegalArgumentException("filas inválidas: " + de + " a " + ate);
+        }
+        int ocupados = 0;
+        for (int fila = de; fila <= ate; fila++) {
+            ocupados += Long.bitCount(assentos[fila]);
+        }
+        return (ate - de + 1) * ASSENTOS_POR_FILA - ocupados;
+    }
+
+    public int lugaresLivres(Zona zona) {
+        return lugaresLivresNasFilas(zona.getPrimeiraFila(), zona.getUltimaFila());
+    }
+
+    public int ocupadosNaFila(int fila) {
+        return Long.bitCount(assentos[fila]);
+    }
 }
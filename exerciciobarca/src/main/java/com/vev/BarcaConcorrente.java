@@ -0,0 +1,93 @@
+package com.vev;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Versão da Barca para vários terminais de check-in ao mesmo tempo, sem um
+// lock global: cada fila é um bitmap atualizado por CAS e o total de
+// passageiros é um contador atômico. Os códigos de retorno são os mesmos de
+// Barca.ocupaLugar.
+public class BarcaConcorrente {
+    private final AtomicLongArray assentos = new AtomicLongArray(Barca.FILAS);
+    private final AtomicInteger qtdadeAssentosOcupados = new AtomicInteger();
+
+    public int ocupaLugar(CharSequence assentoInformado) {
+        return status(embarcaDecodificado(CodigoAssento.decodifica(assentoInformado)));
+    }
+
+    public int ocupaLugar(ByteBuffer buffer, int offset, int length) {
+        return status(embarcaDecodificado(CodigoAssento.decodifica(buffer, offset, length)));
+    }
+
+    // Como ocupaLugar, mas retorna a posição do passageiro na ordem de
+    // embarque (0 para o primeiro) ou, se ele não embarcou, ~retorno de
+    // ocupaLugar (sempre negativo)
+    int embarca(CharSequence assentoInformado) {
+        return embarcaDecodificado(CodigoAssento.decodifica(assentoInformado));
+    }
+
+    private static int status(int embarque) {
+        return embarque >= 0 ? 3 : ~embarque;
+    }
+
+    private int embarcaDecodificado(int codigo) {
+        if (codigo == CodigoAssento.INVALIDO) {
+            return ~0;
+        }
+        int fila = CodigoAssento.fila(codigo);
+        int assento = CodigoAssento.assento(codigo);
+        if (fila >= Barca.FILAS || assento >= Barca.ASSENTOS_POR_FILA) {
+            return ~0;
+        }
+        // Primeiro reserva o assento: quem perde a disputa pelo bit sai sem
+        // tocar no contador
+        long bit = 1L << assento;
+        long linha;
+        do {
+            linha = assentos.get(fila);
+            if ((linha & bit) != 0) {
+                return ~1;
+            }
+        } while (!assentos.compareAndSet(fila, linha, linha | bit));
+        // Depois pega a posição na ordem de embarque. A regra de peso é
+        // avaliada sobre o valor exato que o CAS vai incrementar; se outro
+        // terminal mudou o contador no meio tempo, a regra é reavaliada. O
+        // contador nunca volta atrás, então cada incremento é um passageiro
+        // que embarcou, conferido contra a sua posição real.
+        while (true) {
+            int ocupados = qtdadeAssentosOcupados.get();
+            int regra = Barca.regraDistribuicao(ocupados, fila);
+            if (regra != 3) {
+                // Fila bloqueada para esta posição: devolve o assento. Enquanto
+                // ele esteve reservado, outro terminal pode ter recebido 1
+                // (ocupado) para o mesmo código; o assento volta a ficar livre
+                // e uma nova tentativa é avaliada normalmente.
+                assentos.getAndUpdate(fila, l -> l & ~bit);
+                return ~regra;
+            }
+            if (qtdadeAssentosOcupados.compareAndSet(ocupados, ocupados + 1)) {
+                return ocupados;
+            }
+        }
+    }
+
+    public int getQtdadeAssentosOcupados() {
+        return qtdadeAssentosOcupados.get();
+    }
+
+    public int lugaresLivresNasFilas(int de, int ate) {
+        if (de < 0 || ate >= Barca.FILAS || de > ate) {
+            throw new IllegalArgumentException("filas inválidas: " + de + " a " + ate);
+        }
+        int ocupados = 0;
+        for (int fila = de; fila <= ate; fila++) {
+            ocupados += Long.bitCount(assentos.get(fila));
+        }
+        return (ate - de + 1) * Barca.ASSENTOS_POR_FILA - ocupados;
+    }
+
+    public int lugaresLivres(Zona zona) {
+        return lugaresLivresNasFilas(zona.getPrimeiraFila(), zona.getUltimaFila());
+    }
+}
@@ -0,0 +1,84 @@
+package com.vev;
+
+import java.nio.ByteBuffer;
+
+// Decodificador de códigos de assento no formato FxxAyy, equivalente à regex
+// [F][0-8]{2}[A][0-8]{2}, feito em uma única passada sobre os caracteres e
+// sem alocar objetos. O resultado é fila e assento empacotados em um int, ou
+// INVALIDO se o código não tem o formato esperado.
+public final class CodigoAssento {
+    public static final int INVALIDO = -1;
+    private static final int TAMANHO = 6;
+
+    private CodigoAssento() {
+    }
+
+    public static int decodifica(CharSequence codigo) {
+        if (codigo.length() != TAMANHO || codigo.charAt(0) != 'F' || codigo.charAt(3) != 'A') {
+            return INVALIDO;
+        }
+        int f1 = digito(codigo.charAt(1));
+        int f2 = digito(codigo.charAt(2));
+        int a1 = digito(codigo.charAt(4));
+        int a2 = digito(codigo.charAt(5));
+        if ((f1 | f2 | a1 | a2) < 0) {
+            return INVALIDO;
+        }
+        return empacota(f1 * 10 + f2, a1 * 10 + a2);
+    }
+
+    // Decodifica length bytes ASCII a partir de offset, sem mexer na posição
+    // do buffer (por exemplo, um pedaço de um buffer recebido da rede)
+    public static int decodifica(ByteBuffer buffer, int offset, int length) {
+        if (length != TAMANHO || buffer.get(offset) != 'F' || buffer.get(offset + 3) != 'A') {
+            return INVALIDO;
+        }
+        int f1 = digito(buffer.get(offset + 1));
+        int f2 = digito(buffer.get(offset + 2));
+        int a1 = digito(buffer.get(offset + 4));
+        int a2 = digito(buffer.get(offset + 5));
+        if ((f1 | f2 | a1 | a2) < 0) {
+            return INVALIDO;
+        }
+        return empacota(f1 * 10 + f2, a1 * 10 + a2);
+    }
+
+    public static int fila(int codigo) {
+        return codigo >>> 8;
+    }
+
+    public static int assento(int codigo) {
+        return codigo & 0xFF;
+    }
+
+    // Código no formato FxxAyy de um lugar empacotado
+    public static String formata(int codigo) {
+        int fila = fila(codigo);
+        int assento = assento(codigo);
+        return new String(new char[] {
+            'F', (char) ('0' + fila / 10), (char) ('0' + fila % 10),
+            'A', (char) ('0' + assento / 10), (char) ('0' + assento % 10)
+        });
+    }
+
+    static int empacota(int fila, int assento) {
+        return fila << 8 | assento;
+    }
+
+    // Máscara com o bit i ligado para cada i de 0 a n-1 que tem código, ou
+    // seja, que não tem o dígito 9 (filas 9, 19, ..., assentos 9 e 19)
+    static long enderecaveis(int n) {
+        long mascara = 0;
+        for (int i = 0; i < n; i++) {
+            if (i % 10 != 9 && i / 10 != 9) {
+                mascara |= 1L << i;
+            }
+        }
+        return mascara;
+    }
+
+    // A regex só aceita os dígitos de 0 a 8
+    private static int digito(int c) {
+        return c >= '0' && c <= '8' ? c - '0' : -1;
+    }
+}
@@ -0,0 +1,230 @@
+package com.vev;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.ShortBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Diário binário das reservas de uma barca. Formato:
+//
+//   cabeçalho (8 bytes): magic, versão do formato
+//   entradas (2 bytes cada): índice do assento, fila * 20 + assento, com o
+//   bit 15 ligado quando a entrada é uma liberação
+//
+// Todos os inteiros são big-endian. As entradas ficam num buffer em memória e
+// vão para o arquivo em lotes, com um único force por lote; o que ainda está
+// no buffer se perde numa queda antes de flush ou close. A reconstrução lê o
+// arquivo mapeado e liga os bits direto no bitmap, sem decodificar códigos nem
+// reaplicar a regra de distribuição de peso.
+public class DiarioReservas implements Closeable {
+    public static final int LOTE_PADRAO = 4096;
+
+    static final int MAGIC = 0x42524331; // "BRC1"
+    static final int FORMAT_VERSION = 1;
+    static final int HEADER_SIZE = 8;
+    static final int ENTRY_SIZE = 2;
+    static final int ASSENTOS = Barca.FILAS * Barca.ASSENTOS_POR_FILA;
+    static final int LIBERACAO = 0x8000;
+
+    private final Path arquivo;
+    private final FileChannel canal;
+    private final ByteBuffer pendentes;
+    private boolean fechado;
+
+    private DiarioReservas(Path arquivo, FileChannel canal, int lote) {
+        this.arquivo = arquivo;
+        this.canal = canal;
+        pendentes = ByteBuffer.allocate(lote);
+    }
+
+    public static DiarioReservas abre(Path arquivo) throws IOException {
+        return abre(arquivo, LOTE_PADRAO);
+    }
+
+    // Abre (ou cria) o diário; lote é o tamanho em bytes do buffer de entradas
+    // pendentes. Um byte solto no fim (queda no meio de uma entrada) é
+    // descartado.
+    public static DiarioReservas abre(Path arquivo, int lote) throws IOException {
+        if (lote < ENTRY_SIZE) {
+            throw new IllegalArgumentException("lote inválido: " + lote);
+        }
+        FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            long tamanho = canal.size();
+            if (tamanho < HEADER_SIZE) {
+                ByteBuffer cabecalho = ByteBuffer.allocate(HEADER_SIZE);
+                cabecalho.putInt(MAGIC).putInt(FORMAT_VERSION).flip();
+                canal.truncate(0);
+                while (cabecalho.hasRemaining()) {
+                    canal.write(cabecalho, cabecalho.position());
+                }
+                canal.force(false);
+                tamanho = HEADER_SIZE;
+            } else {
+                verificaCabecalho(canal, arquivo);
+            }
+            long valido = tamanho - (tamanho - HEADER_SIZE) % ENTRY_SIZE;
+            if (valido < tamanho) {
+                canal.truncate(valido);
+            }
+            canal.position(valido);
+        } catch (IOException | RuntimeException e) {
+            canal.close();
+            throw e;
+        }
+        return new DiarioReservas(arquivo, canal, lote - lote % ENTRY_SIZE);
+    }
+
+    private static void verificaCabecalho(FileChannel canal, Path arquivo) throws IOException {
+        ByteBuffer cabecalho = ByteBuffer.allocate(HEADER_SIZE);
+        while (cabecalho.hasRemaining() && canal.read(cabecalho, cabecalho.position()) >= 0) {
+            // lê o cabeçalho inteiro
+        }
+        cabecalho.flip();
+        if (cabecalho.getInt() != MAGIC) {
+            throw new IOException("não é um diário de reservas: " + arquivo);
+        }
+        int versao = cabecalho.getInt();
+        if (versao != FORMAT_VERSION) {
+            throw new IOException("versão " + versao + " do diário não suportada: " + arquivo);
+        }
+    }
+
+    // Acrescenta a ocupação do assento ao lote pendente
+    public void registra(int fila, int assento) throws IOException {
+        acrescenta(fila * Barca.ASSENTOS_POR_FILA + assento);
+    }
+
+    // Acrescenta a liberação do assento ao lote pendente
+    public void registraLiberacao(int fila, int assento) throws IOException {
+        acrescenta(LIBERACAO | fila * Barca.ASSENTOS_POR_FILA + assento);
+    }
+
+    // Acrescenta a ocupação de todos os assentos (códigos empacotados, como
+    // em CodigoAssento) ou de nenhum: o espaço para o grupo inteiro é aberto
+    // antes da primeira entrada, então uma falha não deixa parte dele
+    // pendente. Um grupo maior que o lote vai direto para o arquivo, que volta
+    // ao tamanho anterior se a gravação falhar.
+    public void registraTodos(int[] codigos) throws IOException {
+        ensureOpen();
+        int tamanho = codigos.length * ENTRY_SIZE;
+        if (pendentes.remaining() < tamanho) {
+            flush();
+        }
+        if (pendentes.remaining() >= tamanho) {
+            for (int codigo : codigos) {
+                pendentes.putShort((short) entrada(codigo));
+            }
+            return;
+        }
+        ByteBuffer grupo = ByteBuffer.allocate(tamanho);
+        for (int codigo : codigos) {
+            grupo.putShort((short) entrada(codigo));
+        }
+        grupo.flip();
+        long inicio = canal.position();
+        try {
+            while (grupo.hasRemaining()) {
+                canal.write(grupo);
+            }
+            canal.force(false);
+        } catch (IOException e) {
+            try {
+                canal.truncate(inicio);
+            } catch (IOException desfazer) {
+                e.addSuppressed(desfazer);
+            }
+            throw e;
+        }
+    }
+
+    private static int entrada(int codigo) {
+        return CodigoAssento.fila(codigo) * Barca.ASSENTOS_POR_FILA + CodigoAssento.assento(codigo);
+    }
+
+    private void acrescenta(int entrada) throws IOException {
+        ensureOpen();
+        if (!pendentes.hasRemaining()) {
+            flush();
+        }
+        pendentes.putShort((short) entrada);
+    }
+
+    // Grava o lote pendente com um único force. Se a gravação falhar, o que
+    // não chegou ao arquivo continua pendente, para o próximo flush.
+    public void flush() throws IOException {
+        if (pendentes.position() == 0 || fechado) {
+            return;
+        }
+        pendentes.flip();
+        try {
+            while (pendentes.hasRemaining()) {
+                canal.write(pendentes);
+            }
+        } finally {
+            pendentes.compact();
+        }
+        canal.force(false);
+    }
+
+    // Preenche o bitmap (um long por fila, como na Barca) com o estado final
+    // dos assentos depois de todas as entradas gravadas e retorna quantas
+    // entradas foram lidas
+    public long reconstroi(long[] assentos) throws IOException {
+        ensureOpen();
+        flush();
+        long fim = canal.position();
+        long entradas = 0;
+        // Mapeia em pedaços para arquivos maiores que 2 GB
+        long pedaco = (1L << 30);
+        // Cada entrada só grava um byte na posição do assento (a última entrada
+        // de cada assento prevalece): são escritas independentes, sem a
+        // dependência de ler e regravar o long da fila
+        byte[] ocupado = new byte[ASSENTOS];
+        for (long inicio = HEADER_SIZE; inicio < fim; inicio += pedaco) {
+            MappedByteBuffer mapa = canal.map(FileChannel.MapMode.READ_ONLY, inicio, Math.min(pedaco, fim - inicio));
+            ShortBuffer indices = mapa.asShortBuffer();
+            entradas += indices.remaining();
+            while (indices.hasRemaining()) {
+                int entrada = indices.get() & 0xFFFF;
+                int indice = entrada & ~LIBERACAO;
+                if (indice >= ASSENTOS) {
+                    throw new IOException("entrada inválida " + entrada + " no diário " + arquivo);
+                }
+                ocupado[indice] = (byte) (1 - (entrada >>> 15));
+            }
+        }
+        for (int fila = 0; fila < Barca.FILAS; fila++) {
+            long linha = 0;
+            for (int assento = 0; assento < Barca.ASSENTOS_POR_FILA; assento++) {
+                linha |= (long) ocupado[fila * Barca.ASSENTOS_POR_FILA + assento] << assento;
+            }
+            assentos[fila] = linha;
+        }
+        return entradas;
+    }
+
+    private void ensureOpen() {
+        if (fechado) {
+            throw new IllegalStateException("diário fechado: " + arquivo);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (fechado) {
+            return;
+        }
+        try {
+            flush();
+        } finally {
+            fechado = true;
+            canal.close();
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package com.vev;
+
+import java.util.Arrays;
+
+// Mapas de assentos de muitas travessias (uma Barca por travessia) guardados
+// num único long[]: cada long tem 3 filas de 20 bits, então uma barca ocupa
+// 20 longs seguidos (160 bytes) em vez de um objeto com seus próprios arrays.
+// As travessias são identificadas por um id long, mapeado para a posição na
+// arena por uma tabela hash aberta sem objetos por entrada. Posições de
+// travessias descartadas são reaproveitadas. Os códigos de retorno de
+// ocupaLugar são os mesmos de Barca.ocupaLugar.
+public class Frota {
+    static final int FILAS_POR_PALAVRA = 3;
+    static final int PALAVRAS_POR_BARCA = Barca.FILAS / FILAS_POR_PALAVRA;
+    private static final int VAZIO = -1;
+
+    // PALAVRAS_POR_BARCA longs por posição
+    private long[] arena;
+    private int[] ocupados;
+    // Posições liberadas por descarta, usadas antes de crescer a arena
+    private int[] livres;
+    private int qtdadeLivres;
+    private int proximaPosicao;
+
+    // Tabela hash aberta (sondagem linear) de id da travessia para posição
+    private long[] ids;
+    private int[] posicoes;
+    private int tamanho;
+
+    public Frota() {
+        this(16);
+    }
+
+    public Frota(int capacidadeInicial) {
+        if (capacidadeInicial < 1) {
+            throw new IllegalArgumentException("capacidade inválida: " + capacidadeInicial);
+        }
+        arena = new long[capacidadeInicial * PALAVRAS_POR_BARCA];
+        ocupados = new int[capacidadeInicial];
+        livres = new int[capacidadeInicial];
+        int tabela = Integer.highestOneBit(capacidadeInicial * 2 - 1) * 2;
+        ids = new long[tabela];
+        posicoes = new int[tabela];
+        Arrays.fill(posicoes, VAZIO);
+    }
+
+    // Abre uma travessia com a barca vazia
+    public void abre(long travessia) {
+        int posicao = novaPosicao(travessia);
+        Arrays.fill(arena, posicao * PALAVRAS_POR_BARCA, (posicao + 1) * PALAVRAS_POR_BARCA, 0L);
+        ocupados[posicao] = 0;
+    }
+
+    // Abre uma travessia com o estado devolvido por exporta
+    public void carrega(long travessia, long[] estado) {
+        if (estado.length != PALAVRAS_POR_BARCA) {
+            throw new IllegalArgumentException("estado com " + estado.length
+                    + " palavras, esperado " + PALAVRAS_POR_BARCA);
+        }
+        int total = 0;
+        for (long palavra : estado) {
+            if ((palavra & ~((1L << (FILAS_POR_PALAVRA * Barca.ASSENTOS_POR_FILA)) - 1)) != 0) {
+                throw new IllegalArgumentException("estado com bits fora das filas");
+            }
+            total += Long.bitCount(palavra);
+        }
+        int posicao = novaPosicao(travessia);
+        System.arraycopy(estado, 0, arena, posicao * PALAVRAS_POR_BARCA, PALAVRAS_POR_BARCA);
+        ocupados[posicao] = total;
+    }
+
+    // Cópia do mapa de assentos da travessia, no formato aceito por carrega
+    public long[] exporta(long travessia) {
+        int inicio = posicao(travessia) * PALAVRAS_POR_BARCA;
+        return Arrays.copyOfRange(arena, inicio, inicio + PALAVRAS_POR_BARCA);
+    }
+
+    // Remove a travessia da frota; retorna false se ela não estava aberta
+    public boolean descarta(long travessia) {
+        int i = indice(travessia);
+        if (posicoes[i] == VAZIO) {
+            return false;
+        }
+        livres[qtdadeLivres++] = posicoes[i];
+        removeDaTabela(i);
+        return true;
+    }
+
+    public boolean contem(long travessia) {
+        return posicoes[indice(travessia)] != VAZIO;
+    }
+
+    // Quantidade de travessias abertas
+    public int tamanho() {
+        return tamanho;
+    }
+
+    /*
+     * 0 – Identificador de assento inválido
+     * 1 – Assento ocupado
+     * 2 – Assento bloqueado devido a distribuição de peso
+     * 3 – Ok, assento atribuído ao passageiro.
+     */
+    public int ocupaLugar(long travessia, CharSequence assentoInformado) {
+        int posicao = posicao(travessia);
+        int codigo = CodigoAssento.decodifica(assentoInformado);
+        if (codigo == CodigoAssento.INVALIDO) {
+            return 0;
+        }
+        int fila = CodigoAssento.fila(codigo);
+        int assento = CodigoAssento.assento(codigo);
+        if (fila >= Barca.FILAS || assento >= Barca.ASSENTOS_POR_FILA) {
+            return 0;
+        }
+        int palavra = posicao * PALAVRAS_POR_BARCA + fila / FILAS_POR_PALAVRA;
+        long bit = 1L << (fila % FILAS_POR_PALAVRA * Barca.ASSENTOS_POR_FILA + assento);
+        if ((arena[palavra] & bit) != 0) {
+            return 1;
+        }
+        int regra = Barca.regraDistribuicao(ocupados[posicao], fila);
+        if (regra != 3) {
+            return regra;
+        }
+        arena[palavra] |= bit;
+        ocupados[posicao]++;
+        return 3;
+    }
+
+    public int getQtdadeAssentosOcupados(long travessia) {
+        return ocupados[posicao(travessia)];
+    }
+
+    private int posicao(long travessia) {
+        int posicao = posicoes[indice(travessia)];
+        if (posicao == VAZIO) {
+            throw new IllegalArgumentException("travessia não aberta: " + travessia);
+        }
+        return posicao;
+    }
+
+    // Índice da travessia na tabela, ou do espaço vazio onde ela entraria
+    private int indice(long travessia) {
+        int mascara = ids.length - 1;
+        int i = espalha(travessia) & mascara;
+        while (posicoes[i] != VAZIO && ids[i] != travessia) {
+            i = (i + 1) & mascara;
+        }
+        return i;
+    }
+
+    private static int espalha(long travessia) {
+        long h = travessia * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private int novaPosicao(long travessia) {
+        int i = indice(travessia);
+        if (posicoes[i] != VAZIO) {
+            throw new IllegalArgumentException("travessia já aberta: " + travessia);
+        }
+        int posicao;
+        if (qtdadeLivres > 0) {
+            posicao = livres[--qtdadeLivres];
+        } else {
+            if (proximaPosicao == ocupados.length) {
+                int capacidade = ocupados.length * 2;
+                arena = Arrays.copyOf(arena, capacidade * PALAVRAS_POR_BARCA);
+                ocupados = Arrays.copyOf(ocupados, capacidade);
+                livres = Arrays.copyOf(livres, capacidade);
+            }
+            posicao = proximaPosicao++;
+        }
+        ids[i] = travessia;
+        posicoes[i] = posicao;
+        tamanho++;
+        // Mantém a tabela no máximo meio cheia
+        if (tamanho * 2 > ids.length) {
+            rehash();
+        }
+        return posicao;
+    }
+
+    private void rehash() {
+        long[] idsAntigos = ids;
+        int[] posicoesAntigas = posicoes;
+        ids = new long[idsAntigos.length * 2];
+        posicoes = new int[idsAntigos.length * 2];
+        Arrays.fill(posicoes, VAZIO);
+        for (int j = 0; j < idsAntigos.length; j++) {
+            if (posicoesAntigas[j] != VAZIO) {
+                int i = indice(idsAntigos[j]);
+                ids[i] = idsAntigos[j];
+                posicoes[i] = posicoesAntigas[j];
+            }
+        }
+    }
+
+    // Remove a entrada i puxando para trás as entradas seguintes do mesmo
+    // agrupamento, para que nenhuma busca pare num buraco
+    private void removeDaTabela(int i) {
+        int mascara = ids.length - 1;
+        int vazio = i;
+        int j = i;
+        while (true) {
+            j = (j + 1) & mascara;
+            if (posicoes[j] == VAZIO) {
+                break;
+            }
+            int ideal = espalha(ids[j]) & mascara;
+            // Move j para o buraco se o lugar ideal de j não está entre o
+            // buraco (exclusive) e j (inclusive), andando em círculo
+            boolean entre = vazio <= j ? vazio < ideal && ideal <= j : vazio < ideal || ideal <= j;
+            if (!entre) {
+                ids[vazio] = ids[j];
+                posicoes[vazio] = posicoes[j];
+                vazio = j;
+            }
+        }
+        posicoes[vazio] = VAZIO;
+        tamanho--;
+    }
+}
@@ -0,0 +1,89 @@
+package com.vev;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Histograma de valores não negativos com baldes log-lineares (estilo
+// HdrHistogram): valores até 7 têm balde próprio e cada potência de 2 acima
+// disso é dividida em 8 baldes, com erro relativo abaixo de 12,5%. Gravar é
+// um incremento atômico, seguro para várias threads.
+public class HistogramaLog {
+    static final int BITS_SUB_BALDE = 3;
+    static final int SUB_BALDES = 1 << BITS_SUB_BALDE;
+    static final int BALDES = (64 - BITS_SUB_BALDE) * SUB_BALDES;
+
+    private final AtomicLongArray contagens = new AtomicLongArray(BALDES);
+
+    static int balde(long valor) {
+        if (valor < SUB_BALDES) {
+            return (int) Math.max(valor, 0);
+        }
+        int deslocamento = 63 - Long.numberOfLeadingZeros(valor) - BITS_SUB_BALDE;
+        return (deslocamento + 1) * SUB_BALDES + (int) ((valor >>> deslocamento) & (SUB_BALDES - 1));
+    }
+
+    // Maior valor que cai no balde
+    static long limiteSuperior(int balde) {
+        if (balde == BALDES - 1) {
+            return Long.MAX_VALUE;
+        }
+        int proximo = balde + 1;
+        if (proximo < SUB_BALDES) {
+            return proximo - 1;
+        }
+        return ((long) (SUB_BALDES + proximo % SUB_BALDES) << (proximo / SUB_BALDES - 1)) - 1;
+    }
+
+    // Valores negativos contam como 0
+    public void registra(long valor) {
+        contagens.incrementAndGet(balde(valor));
+    }
+
+    public long total() {
+        long total = 0;
+        for (int i = 0; i < BALDES; i++) {
+            total += contagens.get(i);
+        }
+        return total;
+    }
+
+    // Limite superior do balde do percentil p (0 a 100), ou 0 se vazio
+    public long percentil(double p) {
+        if (p < 0 || p > 100) {
+            throw new IllegalArgumentException("percentil inválido: " + p);
+        }
+        long[] copia = new long[BALDES];
+        long total = 0;
+        for (int i = 0; i < BALDES; i++) {
+            copia[i] = contagens.get(i);
+            total += copia[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long alvo = Math.max(1, (long) Math.ceil(p / 100 * total));
+        long vistos = 0;
+        for (int i = 0; i < BALDES; i++) {
+            vistos += copia[i];
+            if (vistos >= alvo) {
+                return limiteSuperior(i);
+            }
+        }
+        return limiteSuperior(BALDES - 1);
+    }
+
+    // Limite superior do maior balde não vazio, ou 0 se vazio
+    public long maximo() {
+        for (int i = BALDES - 1; i >= 0; i--) {
+            if (contagens.get(i) != 0) {
+                return limiteSuperior(i);
+            }
+        }
+        return 0;
+    }
+
+    public void zera() {
+        for (int i = 0; i < BALDES; i++) {
+            contagens.set(i, 0);
+        }
+    }
+}
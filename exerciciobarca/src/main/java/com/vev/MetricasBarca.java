@@ -0,0 +1,86 @@
+package com.vev;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+// Métricas de ocupaLugar: um LongAdder por código de retorno (0 a 3) e a
+// latência de cada chamada em nanossegundos, decodificação incluída. Ligadas
+// com Barca.setMetricas; sem métricas o custo é uma leitura de campo. Uma
+// mesma instância pode ser compartilhada por várias barcas.
+public class MetricasBarca implements MetricasBarcaMBean {
+    private final LongAdder[] porStatus = {new LongAdder(), new LongAdder(), new LongAdder(), new LongAdder()};
+    private final HistogramaLog latencia = new HistogramaLog();
+
+    void registra(int status, long nanos) {
+        porStatus[status].increment();
+        latencia.registra(nanos);
+    }
+
+    // Quantidade de chamadas que retornaram o status (0 a 3)
+    public long comStatus(int status) {
+        return porStatus[status].sum();
+    }
+
+    @Override
+    public long getInvalidos() {
+        return comStatus(0);
+    }
+
+    @Override
+    public long getOcupados() {
+        return comStatus(1);
+    }
+
+    @Override
+    public long getBloqueados() {
+        return comStatus(2);
+    }
+
+    @Override
+    public long getAtribuidos() {
+        return comStatus(3);
+    }
+
+    @Override
+    public long getLatenciaP50Nanos() {
+        return latencia.percentil(50);
+    }
+
+    @Override
+    public long getLatenciaP99Nanos() {
+        return latencia.percentil(99);
+    }
+
+    @Override
+    public long getLatenciaMaximaNanos() {
+        return latencia.maximo();
+    }
+
+    // Histograma completo, para percentis além dos expostos no MBean
+    public HistogramaLog latencia() {
+        return latencia;
+    }
+
+    @Override
+    public void zera() {
+        for (LongAdder contador : porStatus) {
+            contador.reset();
+        }
+        latencia.zera();
+    }
+
+    // Registra as métricas no servidor JMX da plataforma como
+    // com.vev:type=Barca,name=<nome>
+    public ObjectName registraMBean(String nome) {
+        try {
+            ObjectName objectName = ObjectName.getInstance("com.vev:type=Barca,name=" + ObjectName.quote(nome));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+            return objectName;
+        } catch (JMException e) {
+            throw new IllegalArgumentException("não foi possível registrar as métricas como " + nome, e);
+        }
+    }
+}
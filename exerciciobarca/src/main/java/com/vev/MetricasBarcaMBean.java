@@ -0,0 +1,20 @@
+package com.vev;
+
+// Interface JMX das métricas de uma Barca (ver MetricasBarca)
+public interface MetricasBarcaMBean {
+    long getInvalidos();
+
+    long getOcupados();
+
+    long getBloqueados();
+
+    long getAtribuidos();
+
+    long getLatenciaP50Nanos();
+
+    long getLatenciaP99Nanos();
+
+    long getLatenciaMaximaNanos();
+
+    void zera();
+}
@@ -0,0 +1,151 @@
+package com.vev;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+// Roda de temporizadores com hash (hashed timer wheel). O tempo é dividido em
+// ticks e cada temporizador vai para a posição da roda do tick em que vence;
+// temporizadores que vencem depois de uma volta inteira ficam na mesma posição
+// e são pulados até chegar a sua vez. Agendar e cancelar custam O(1), e cada
+// tick só olha os temporizadores de uma posição, sem uma thread ou tarefa por
+// temporizador.
+//
+// A roda não tem thread própria: quem a usa chama avanca() periodicamente
+// (por exemplo, a cada tick), na mesma thread que usa as barcas ligadas a ela.
+public class RodaTemporizadora {
+    private final long tickMillis;
+    private final LongSupplier relogio;
+    // Uma lista duplamente ligada circular por posição, com nó sentinela
+    private final Temporizador[] posicoes;
+    private final int mascara;
+    private long tickAtual;
+    private int pendentes;
+
+    public RodaTemporizadora(Duration tick, int posicoes) {
+        this(tick, posicoes, System::currentTimeMillis);
+    }
+
+    // relogio fornece o instante atual em milissegundos
+    public RodaTemporizadora(Duration tick, int posicoes, LongSupplier relogio) {
+        if (tick.toMillis() < 1) {
+            throw new IllegalArgumentException("tick deve ter pelo menos 1 ms: " + tick);
+        }
+        if (posicoes < 1 || posicoes > 1 << 30) {
+            throw new IllegalArgumentException("número de posições inválido: " + posicoes);
+        }
+        tickMillis = tick.toMillis();
+        this.relogio = relogio;
+        int tamanho = Integer.highestOneBit(posicoes * 2 - 1);
+        this.posicoes = new Temporizador[tamanho];
+        for (int i = 0; i < tamanho; i++) {
+            Temporizador sentinela = new Temporizador(this, 0, null);
+            sentinela.anterior = sentinela;
+            sentinela.proximo = sentinela;
+            this.posicoes[i] = sentinela;
+        }
+        mascara = tamanho - 1;
+        tickAtual = Math.floorDiv(relogio.getAsLong(), tickMillis);
+    }
+
+    // Agenda a ação para depois do atraso. A ação roda dentro de um avanca()
+    // no primeiro tick que começa depois do prazo, nunca antes dele.
+    public Temporizador agenda(Duration atraso, Runnable acao) {
+        long prazo = relogio.getAsLong() + Math.max(0, atraso.toMillis());
+        long tickPrazo = Math.max(Math.floorDiv(prazo + tickMillis - 1, tickMillis), tickAtual + 1);
+        Temporizador temporizador = new Temporizador(this, tickPrazo, acao);
+        Temporizador sentinela = posicoes[(int) (tickPrazo & mascara)];
+        temporizador.anterior = sentinela.anterior;
+        temporizador.proximo = sentinela;
+        sentinela.anterior.proximo = temporizador;
+        sentinela.anterior = temporizador;
+        pendentes++;
+        return temporizador;
+    }
+
+    // Roda as ações de todos os temporizadores vencidos até agora e retorna
+    // quantos venceram. Visita no máximo uma volta da roda, mesmo que avanca()
+    // não tenha sido chamado por muito tempo.
+    public int avanca() {
+        long agora = Math.floorDiv(relogio.getAsLong(), tickMillis);
+        if (agora <= tickAtual) {
+            return 0;
+        }
+        long passos = Math.min(agora - tickAtual, posicoes.length);
+        // Primeiro separa os vencidos, depois roda as ações: uma ação pode
+        // agendar ou cancelar outros temporizadores sem atrapalhar a varredura
+        Temporizador vencidos = null;
+        int quantidade = 0;
+        for (long tick = tickAtual + 1; tick <= tickAtual + passos; tick++) {
+            Temporizador sentinela = posicoes[(int) (tick & mascara)];
+            Temporizador t = sentinela.proximo;
+            while (t != sentinela) {
+                Temporizador proximo = t.proximo;
+                if (t.tickPrazo <= agora) {
+                    t.desliga();
+                    t.proximo = vencidos;
+                    vencidos = t;
+                    quantidade++;
+                }
+                t = proximo;
+            }
+        }
+        tickAtual = agora;
+        // A lista de vencidos está em ordem inversa; inverte para rodar as
+        // ações na ordem em que foram encontrados
+        Temporizador ordenados = null;
+        while (vencidos != null) {
+            Temporizador proximo = vencidos.proximo;
+            vencidos.proximo = ordenados;
+            ordenados = vencidos;
+            vencidos = proximo;
+        }
+        while (ordenados != null) {
+            Temporizador proximo = ordenados.proximo;
+            ordenados.proximo = null;
+            ordenados.acao.run();
+            ordenados = proximo;
+        }
+        return quantidade;
+    }
+
+    // Quantidade de temporizadores agendados que ainda não venceram
+    public int pendentes() {
+        return pendentes;
+    }
+
+    public static final class Temporizador {
+        private final RodaTemporizadora roda;
+        private final long tickPrazo;
+        private final Runnable acao;
+        private Temporizador anterior;
+        private Temporizador proximo;
+
+        private Temporizador(RodaTemporizadora roda, long tickPrazo, Runnable acao) {
+            this.roda = roda;
+            this.tickPrazo = tickPrazo;
+            this.acao = acao;
+        }
+
+        // Retira o temporizador da roda; retorna false se ele já venceu ou já
+        // tinha sido cancelado
+        public boolean cancela() {
+            if (anterior == null) {
+                return false;
+            }
+            desliga();
+            return true;
+        }
+
+        public boolean ativo() {
+            return anterior != null;
+        }
+
+        private void desliga() {
+            anterior.proximo = proximo;
+            proximo.anterior = anterior;
+            anterior = null;
+            proximo = null;
+            roda.pendentes--;
+        }
+    }
+}
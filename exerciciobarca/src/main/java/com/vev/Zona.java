@@ -0,0 +1,37 @@
+package com.vev;
+
+// Faixas de filas usadas pelas regras de distribuição de peso da barca
+public enum Zona {
+    // Filas liberadas enquanto a barca tem até 100 passageiros
+    DIANTEIRA(0, 20),
+    // Filas liberadas só depois de 200 passageiros
+    CENTRAL(21, 39),
+    // Filas liberadas a partir de 101 passageiros
+    TRASEIRA(40, Barca.FILAS - 1);
+
+    // Todas as filas da barca, no mesmo formato de mascara()
+    static final long TODAS_AS_FILAS = (1L << Barca.FILAS) - 1;
+
+    private final int primeiraFila;
+    private final int ultimaFila;
+    private final long mascara;
+
+    Zona(int primeiraFila, int ultimaFila) {
+        this.primeiraFila = primeiraFila;
+        this.ultimaFila = ultimaFila;
+        mascara = ((1L << (ultimaFila + 1)) - 1) & ~((1L << primeiraFila) - 1);
+    }
+
+    public int getPrimeiraFila() {
+        return primeiraFila;
+    }
+
+    public int getUltimaFila() {
+        return ultimaFila;
+    }
+
+    // Um bit por fila (bit i = fila i) com as filas da zona ligadas
+    long mascara() {
+        return mascara;
+    }
+}
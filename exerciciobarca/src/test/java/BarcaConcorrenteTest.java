@@ -0,0 +1,135 @@
+package com.vev;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BarcaConcorrenteTest {
+
+    private static final int THREADS = 8;
+
+    private BarcaConcorrente barca;
+
+    @BeforeEach
+    void setUp() {
+        barca = new BarcaConcorrente();
+    }
+
+    // Em uso sequencial, mesmos retornos da Barca
+    @Test
+    void testMesmoComportamentoDaBarca() {
+        Barca referencia = new Barca();
+        Random random = new Random(5);
+        for (int n = 0; n < 20_000; n++) {
+            String codigo = String.format("F%02dA%02d", random.nextInt(59), random.nextInt(22));
+            assertEquals(referencia.ocupaLugar(codigo), barca.ocupaLugar(codigo), codigo);
+        }
+    }
+
+    @Test
+    void testCodigosInvalidos() {
+        assertEquals(0, barca.ocupaLugar("G01A01"));
+        assertEquals(0, barca.ocupaLugar("F01A20"));
+        assertEquals(0, barca.ocupaLugar("F61A01"));
+        // a Barca original falha com índice 60; aqui é só um código inválido
+        assertEquals(0, barca.ocupaLugar("F60A01"));
+    }
+
+    // Vários terminais disputando o mesmo assento: só um consegue
+    @Test
+    void testMesmoAssentoSoUmaVez() throws Exception {
+        for (int rodada = 0; rodada < 200; rodada++) {
+            BarcaConcorrente disputada = new BarcaConcorrente();
+            AtomicInteger sucessos = new AtomicInteger();
+            executa(THREADS, t -> {
+                if (disputada.ocupaLugar("F01A01") == 3) {
+                    sucessos.incrementAndGet();
+                }
+            });
+            assertEquals(1, sucessos.get());
+            assertEquals(1, disputada.getQtdadeAssentosOcupados());
+        }
+    }
+
+    // Terminais percorrendo os mesmos códigos na mesma ordem (todos disputam
+    // cada assento) até lotar. Cada embarque aceito devolve a sua posição na
+    // ordem de embarque; a regra de peso tem que valer para a fila de cada
+    // posição, não importa a ordem em que as threads chegaram.
+    @Test
+    void testDistribuicaoDePesoSobConcorrencia() throws Exception {
+        List<String> codigos = new ArrayList<>();
+        for (int fila = 0; fila < 59; fila++) {
+            for (int assento = 0; assento < 19; assento++) {
+                if (fila % 10 != 9 && assento % 10 != 9) {
+                    codigos.add(String.format("F%02dA%02d", fila, assento));
+                }
+            }
+        }
+        for (int rodada = 0; rodada < 50; rodada++) {
+            BarcaConcorrente disputada = new BarcaConcorrente();
+            Collections.shuffle(codigos, new Random(rodada));
+            // fila de quem embarcou em cada posição, mais 1 (0 é posição vazia)
+            AtomicIntegerArray filaDaPosicao = new AtomicIntegerArray(Barca.FILAS * Barca.ASSENTOS_POR_FILA);
+            AtomicInteger sucessos = new AtomicInteger();
+            AtomicInteger repetidas = new AtomicInteger();
+            executa(THREADS, t -> {
+                for (int n = 0; n < 4 * codigos.size(); n++) {
+                    String codigo = codigos.get(n % codigos.size());
+                    int posicao = disputada.embarca(codigo);
+                    if (posicao >= 0) {
+                        int fila = Integer.parseInt(codigo.substring(1, 3));
+                        if (!filaDaPosicao.compareAndSet(posicao, 0, fila + 1)) {
+                            repetidas.incrementAndGet();
+                        }
+                        sucessos.incrementAndGet();
+                    }
+                }
+            });
+
+            assertEquals(0, repetidas.get(), "posições repetidas");
+            int total = disputada.getQtdadeAssentosOcupados();
+            assertEquals(sucessos.get(), total);
+            assertEquals(codigos.size(), total);
+            for (int posicao = 0; posicao < total; posicao++) {
+                int fila = filaDaPosicao.get(posicao) - 1;
+                assertTrue(fila >= 0, "posição sem passageiro: " + posicao);
+                assertEquals(3, Barca.regraDistribuicao(posicao, fila),
+                        "posição " + posicao + " na fila " + fila);
+            }
+        }
+    }
+
+    interface Tarefa {
+        void executa(int thread);
+    }
+
+    private static void executa(int threads, Tarefa tarefa) throws InterruptedException {
+        CountDownLatch largada = new CountDownLatch(1);
+        List<Thread> lista = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int id = t;
+            Thread thread = new Thread(() -> {
+                try {
+                    largada.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                tarefa.executa(id);
+            });
+            thread.start();
+            lista.add(thread);
+        }
+        largada.countDown();
+        for (Thread thread : lista) {
+            thread.join();
+        }
+    }
+}
@@ -1,5 +1,9 @@
 package com.vev;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.*;
@@ -180,4 +184,359 @@ public class BarcaTest {
         // Agora 101 passageiros - deve bloquear filas < 40
         assertEquals(2, barca.ocupaLugar("F39A01")); // 101 passageiros, fila 39 < 40 bloqueada
     }
-}
\ No newline at end of file
+
+    // CONSULTAS DE LUGARES LIVRES
+    @Test
+    void testProximoLugarLivreBarcaVazia() {
+        assertEquals("F00A00", CodigoAssento.formata(barca.proximoLugarLivre(Zona.DIANTEIRA)));
+        assertEquals("F21A00", CodigoAssento.formata(barca.proximoLugarLivre(Zona.CENTRAL)));
+        assertEquals("F40A00", CodigoAssento.formata(barca.proximoLugarLivre(Zona.TRASEIRA)));
+    }
+
+    @Test
+    void testProximoLugarLivrePulaOcupados() {
+        for (int j = 0; j < 20; j++) {
+            barca.ocupaLugar(40, j);
+        }
+        barca.ocupaLugar(41, 0);
+        barca.ocupaLugar(41, 1);
+        assertEquals("F41A02", CodigoAssento.formata(barca.proximoLugarLivre(Zona.TRASEIRA)));
+    }
+
+    @Test
+    void testProximoLugarLivreZonaLotada() {
+        for (int i = 21; i <= 39; i++) {
+            for (int j = 0; j < 20; j++) {
+                barca.ocupaLugar(i, j);
+            }
+        }
+        assertEquals(CodigoAssento.INVALIDO, barca.proximoLugarLivre(Zona.CENTRAL));
+        assertEquals(0, barca.lugaresLivres(Zona.CENTRAL));
+    }
+
+    @Test
+    void testLugaresLivresNasFilas() {
+        assertEquals(1200, barca.lugaresLivresNasFilas(0, 59));
+        assertEquals(400, barca.lugaresLivresNasFilas(40, 59));
+        barca.ocupaLugar(45, 3);
+        barca.ocupaLugar(45, 4);
+        barca.ocupaLugar(50, 10);
+        assertEquals(397, barca.lugaresLivresNasFilas(40, 59));
+        assertEquals(2, barca.ocupadosNaFila(45));
+        assertEquals(20, barca.lugaresLivresNasFilas(0, 0));
+    }
+
+    @Test
+    void testLugaresLivresNasFilasInvalidas() {
+        assertThrows(IllegalArgumentException.class, () -> barca.lugaresLivresNasFilas(-1, 10));
+        assertThrows(IllegalArgumentException.class, () -> barca.lugaresLivresNasFilas(10, 60));
+        assertThrows(IllegalArgumentException.class, () -> barca.lugaresLivresNasFilas(20, 10));
+    }
+
+    // ATRIBUIÇÃO AUTOMÁTICA DE LUGAR
+    @Test
+    void testOcupaProximoLugarBarcaVazia() {
+        assertEquals("F00A00", barca.ocupaProximoLugar());
+        assertEquals("F00A01", barca.ocupaProximoLugar());
+        assertEquals(1, barca.ocupaLugar("F00A00"));
+    }
+
+    @Test
+    void testOcupaProximoLugarRespeitaDistribuicao() {
+        // 101 primeiros na frente, 100 seguintes atrás, depois o centro
+        for (int n = 0; n < 101; n++) {
+            int fila = Integer.parseInt(barca.ocupaProximoLugar().substring(1, 3));
+            assertTrue(fila <= 20, "passageiro " + n + " na fila " + fila);
+        }
+        for (int n = 0; n < 100; n++) {
+            int fila = Integer.parseInt(barca.ocupaProximoLugar().substring(1, 3));
+            assertTrue(fila >= 40, "passageiro " + (n + 101) + " na fila " + fila);
+        }
+        // 101 = 5 filas de 18 lugares com código + 11 (F05A00 a F05A11, sem o A09)
+        assertEquals("F05A12", barca.ocupaProximoLugar());
+    }
+
+    @Test
+    void testOcupaProximoLugarPulaOcupados() {
+        barca.ocupaLugar(0, 0);
+        barca.ocupaLugar(0, 2);
+        assertEquals("F00A01", barca.ocupaProximoLugar());
+        assertEquals("F00A03", barca.ocupaProximoLugar());
+    }
+
+    @Test
+    void testOcupaProximoLugarAteLotar() {
+        int embarcados = 0;
+        while (barca.ocupaProximoLugar() != null) {
+            embarcados++;
+        }
+        // Só lotam os lugares com código: 54 filas sem o dígito 9, com 18 cada
+        assertEquals(54 * 18, embarcados);
+        assertEquals(6 * 20 + 54 * 2, barca.lugaresLivresNasFilas(0, Barca.FILAS - 1));
+    }
+
+    @Test
+    void testOcupaProximoLugarSoDaCodigosValidos() {
+        List<String> codigos = new ArrayList<>();
+        String codigo;
+        while ((codigo = barca.ocupaProximoLugar()) != null) {
+            assertEquals(1, barca.ocupaLugar(codigo), codigo);
+            codigos.add(codigo);
+        }
+        for (String c : codigos) {
+            assertTrue(barca.liberaLugar(c), c);
+        }
+        assertEquals(Barca.FILAS * Barca.ASSENTOS_POR_FILA, barca.lugaresLivresNasFilas(0, Barca.FILAS - 1));
+        assertEquals("F00A00", barca.ocupaProximoLugar());
+    }
+
+    @Test
+    void testOcupaProximoLugarPulaAssentoNove() {
+        for (int j = 0; j < 9; j++) {
+            barca.ocupaLugar(0, j);
+        }
+        assertEquals("F00A10", barca.ocupaProximoLugar());
+        for (int j = 11; j < 19; j++) {
+            barca.ocupaLugar(0, j);
+        }
+        // A09 e A19 continuam livres, mas não têm código
+        assertEquals("F01A00", barca.ocupaProximoLugar());
+    }
+
+    @Test
+    void testOcupaProximoLugarDepoisDe200() {
+        // lota a traseira e a fila 0: com 420 passageiros qualquer fila vale
+        for (int i = 40; i < 60; i++) {
+            for (int j = 0; j < 20; j++) {
+                barca.ocupaLugar(i, j);
+            }
+        }
+        for (int j = 0; j < 20; j++) {
+            barca.ocupaLugar(0, j);
+        }
+        assertEquals("F01A00", barca.ocupaProximoLugar());
+    }
+
+    // RESERVA EM GRUPO
+    @Test
+    void testReservaGrupoLugaresVizinhos() {
+        barca.ocupaLugar(0, 2);
+        assertEquals(List.of("F00A03", "F00A04", "F00A05"), barca.reservaGrupo(3));
+        assertEquals(List.of("F00A00", "F00A01"), barca.reservaGrupo(2));
+        assertEquals(1, barca.ocupaLugar("F00A04"));
+    }
+
+    @Test
+    void testReservaGrupoPulaFilaSemEspaco() {
+        // fila 0 com dois lugares ocupados: não cabem 6 seguidos
+        barca.ocupaLugar(0, 5);
+        barca.ocupaLugar(0, 15);
+        List<String> grupo = barca.reservaGrupo(6);
+        assertEquals(6, grupo.size());
+        assertEquals("F01A00", grupo.get(0));
+        assertEquals("F01A05", grupo.get(5));
+    }
+
+    @Test
+    void testReservaGrupoSoUsaLugaresComCodigo() {
+        // o assento 9 separa a fila em dois trechos de 9 lugares com código
+        assertTrue(barca.reservaGrupo(10).isEmpty());
+        barca.ocupaLugar(0, 0);
+        List<String> grupo = barca.reservaGrupo(9);
+        assertEquals("F00A10", grupo.get(0));
+        assertEquals("F00A18", grupo.get(8));
+        for (String codigo : grupo) {
+            assertTrue(barca.liberaLugar(codigo), codigo);
+        }
+    }
+
+    @Test
+    void testReservaGrupoNaoAtravessaFases() {
+        // 95 passageiros: um grupo de 8 terminaria com 102, e nenhuma fila
+        // é permitida tanto até 100 quanto depois de 100
+        for (int n = 0; n < 95; n++) {
+            barca.ocupaProximoLugar();
+        }
+        assertTrue(barca.reservaGrupo(8).isEmpty());
+        assertEquals(6, barca.reservaGrupo(6).size());
+    }
+
+    @Test
+    void testReservaGrupoTamanhoInvalido() {
+        assertThrows(IllegalArgumentException.class, () -> barca.reservaGrupo(0));
+        assertThrows(IllegalArgumentException.class, () -> barca.reservaGrupo(21));
+    }
+
+    @Test
+    void testReservaGrupoPorCodigos() {
+        int[] status = barca.reservaGrupo(List.of("F01A01", "F01A02", "F02A01"));
+        assertArrayEquals(new int[] {3, 3, 3}, status);
+        assertEquals(1, barca.ocupaLugar("F01A02"));
+    }
+
+    @Test
+    void testReservaGrupoPorCodigosTudoOuNada() {
+        barca.ocupaLugar(1, 2);
+        int[] status = barca.reservaGrupo(List.of("F01A01", "F01A02", "F30A01", "XYZ"));
+        assertArrayEquals(new int[] {3, 1, 1, 0}, status);
+        // nenhum lugar do grupo foi ocupado
+        assertEquals(3, barca.ocupaLugar("F01A01"));
+    }
+
+    @Test
+    void testReservaGrupoPorCodigosRepetidos() {
+        int[] status = barca.reservaGrupo(List.of("F01A01", "F01A01"));
+        assertArrayEquals(new int[] {3, 1}, status);
+        assertEquals(3, barca.ocupaLugar("F01A01"));
+    }
+
+    // A fila 60 passa pela regex, mas não existe: o grupo é recusado
+    @Test
+    void testReservaGrupoPorCodigosFilaForaDaBarca() {
+        int[] status = barca.reservaGrupo(List.of("F01A01", "F60A01"));
+        assertArrayEquals(new int[] {3, 0}, status);
+        assertEquals(0, barca.ocupadosNaFila(1));
+        assertEquals(0, barca.ocupaLugar("F60A01"));
+    }
+
+    // LIBERAÇÃO DE LUGARES
+    @Test
+    void testLiberaLugar() {
+        assertEquals(3, barca.ocupaLugar("F01A01"));
+        assertTrue(barca.liberaLugar("F01A01"));
+        assertEquals(0, barca.ocupadosNaFila(1));
+        assertEquals(3, barca.ocupaLugar("F01A01"));
+    }
+
+    @Test
+    void testLiberaLugarLivreOuInvalido() {
+        assertFalse(barca.liberaLugar("F01A01"));
+        assertFalse(barca.liberaLugar("F60A00"));
+        assertFalse(barca.liberaLugar("F01A20"));
+        assertFalse(barca.liberaLugar("XYZ"));
+    }
+
+    // Liberar volta a fase da distribuição de peso
+    @Test
+    void testLiberaLugarVoltaFase() {
+        for (int n = 0; n < 101; n++) {
+            barca.ocupaProximoLugar();
+        }
+        // 101 passageiros: só a traseira
+        assertEquals(2, barca.ocupaLugar("F06A06"));
+        assertTrue(barca.liberaLugar("F00A00"));
+        // 100 passageiros de novo: só a frente
+        assertEquals(1, barca.ocupaLugar("F45A05"));
+        assertEquals(3, barca.ocupaLugar("F06A05"));
+    }
+
+    // Fila lotada volta ao índice de lugares livres
+    @Test
+    void testLiberaLugarEmFilaCheia() {
+        for (int j = 0; j < 20; j++) {
+            barca.ocupaLugar(0, j);
+        }
+        assertEquals(CodigoAssento.empacota(1, 0), barca.proximoLugarLivre(Zona.DIANTEIRA));
+        assertTrue(barca.liberaLugar("F00A07"));
+        assertEquals(CodigoAssento.empacota(0, 7), barca.proximoLugarLivre(Zona.DIANTEIRA));
+        assertEquals("F00A07", barca.ocupaProximoLugar());
+    }
+
+    @Test
+    void testLiberaLugares() {
+        barca.reservaGrupo(3);
+        assertEquals(2, barca.liberaLugares(List.of("F00A00", "F00A02", "F00A02", "F05A05")));
+        assertEquals(1, barca.ocupadosNaFila(0));
+        assertEquals("F00A00", barca.ocupaProximoLugar());
+    }
+
+    // LUGARES SEGURADOS
+    private long agora;
+    private RodaTemporizadora roda;
+
+    private Barca barcaComRoda() {
+        roda = new RodaTemporizadora(Duration.ofSeconds(1), 64, () -> agora);
+        return new Barca(roda);
+    }
+
+    @Test
+    void testSeguraLugarVence() {
+        Barca barca = barcaComRoda();
+        assertEquals(3, barca.seguraLugar("F01A01", Duration.ofMinutes(5)));
+        assertEquals(1, barca.ocupaLugar("F01A01"));
+        assertEquals(1, barca.lugaresSegurados());
+        agora += Duration.ofMinutes(5).toMillis();
+        assertEquals(1, roda.avanca());
+        assertEquals(0, barca.lugaresSegurados());
+        assertFalse(barca.confirma("F01A01"));
+        assertEquals(3, barca.ocupaLugar("F01A01"));
+    }
+
+    @Test
+    void testSeguraLugarConfirma() {
+        Barca barca = barcaComRoda();
+        barca.seguraLugar("F01A01", Duration.ofMinutes(5));
+        assertTrue(barca.confirma("F01A01"));
+        assertFalse(barca.confirma("F01A01"));
+        assertEquals(0, roda.pendentes());
+        agora += Duration.ofHours(1).toMillis();
+        roda.avanca();
+        assertEquals(1, barca.ocupaLugar("F01A01"));
+    }
+
+    @Test
+    void testSeguraLugarCancela() {
+        Barca barca = barcaComRoda();
+        barca.seguraLugar("F01A01", Duration.ofMinutes(5));
+        assertTrue(barca.cancela("F01A01"));
+        assertFalse(barca.cancela("F01A01"));
+        assertEquals(0, barca.ocupadosNaFila(1));
+        assertEquals(0, roda.pendentes());
+    }
+
+    // Lugar segurado conta para a distribuição de peso e recusa com os mesmos códigos
+    @Test
+    void testSeguraLugarRegras() {
+        Barca barca = barcaComRoda();
+        assertEquals(0, barca.seguraLugar("XYZ", Duration.ofMinutes(5)));
+        assertEquals(1, barca.seguraLugar("F30A01", Duration.ofMinutes(5)));
+        for (int n = 0; n < 100; n++) {
+            barca.ocupaProximoLugar();
+        }
+        assertEquals(3, barca.seguraLugar("F10A10", Duration.ofMinutes(5)));
+        assertEquals(2, barca.ocupaLugar("F11A11"));
+        barca.cancela("F10A10");
+        assertEquals(3, barca.ocupaLugar("F11A11"));
+    }
+
+    // A fila 60 passa pela regex, mas não existe: código inválido, nada fica segurado
+    @Test
+    void testSeguraLugarFilaForaDaBarca() {
+        Barca barca = barcaComRoda();
+        assertEquals(0, barca.seguraLugar("F60A01", Duration.ofMinutes(5)));
+        assertEquals(0, barca.lugaresSegurados());
+        assertEquals(0, roda.pendentes());
+        assertFalse(barca.confirma("F60A01"));
+        assertFalse(barca.cancela("F60A01"));
+    }
+
+    @Test
+    void testSeguraLugarSemRoda() {
+        assertThrows(IllegalStateException.class, () -> barca.seguraLugar("F01A01", Duration.ofMinutes(5)));
+        assertFalse(barca.confirma("F01A01"));
+        assertFalse(barca.cancela("F01A01"));
+    }
+
+    // Liberar um lugar segurado cancela o temporizador
+    @Test
+    void testLiberaLugarSegurado() {
+        Barca barca = barcaComRoda();
+        barca.seguraLugar("F01A01", Duration.ofMinutes(5));
+        assertTrue(barca.liberaLugar("F01A01"));
+        assertEquals(0, roda.pendentes());
+        assertEquals(3, barca.ocupaLugar("F01A01"));
+        agora += Duration.ofMinutes(10).toMillis();
+        roda.avanca();
+        assertEquals(1, barca.ocupadosNaFila(1));
+    }
+}
@@ -0,0 +1,92 @@
+package com.vev;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CodigoAssentoTest {
+
+    private static final Pattern REGEX = Pattern.compile("[F][0-8]{2}[A][0-8]{2}");
+
+    // Compara o decodificador com a regex original e com o parseInt das substrings
+    private static void confere(String codigo) {
+        boolean aceito = REGEX.matcher(codigo).matches();
+        int decodificado = CodigoAssento.decodifica(codigo);
+        assertEquals(aceito, decodificado != CodigoAssento.INVALIDO, "código \"" + codigo + "\"");
+        if (aceito) {
+            assertEquals(Integer.parseInt(codigo.substring(1, 3)), CodigoAssento.fila(decodificado));
+            assertEquals(Integer.parseInt(codigo.substring(4, 6)), CodigoAssento.assento(decodificado));
+        }
+        if (codigo.chars().allMatch(c -> c < 128)) {
+            // mesmo código no meio de um buffer maior
+            byte[] bytes = ("xx" + codigo + "yy").getBytes(StandardCharsets.US_ASCII);
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            assertEquals(decodificado, CodigoAssento.decodifica(buffer, 2, codigo.length()), "buffer \"" + codigo + "\"");
+            assertEquals(0, buffer.position());
+        }
+    }
+
+    // Todas as combinações de 6 caracteres sobre um alfabeto com os casos de fronteira
+    @Test
+    void testDiferencialExaustivo() {
+        char[] alfabeto = {'F', 'A', '0', '8', '9', 'f', '/', ':'};
+        char[] codigo = new char[6];
+        int total = 1;
+        for (int i = 0; i < codigo.length; i++) {
+            total *= alfabeto.length;
+        }
+        for (int n = 0; n < total; n++) {
+            int resto = n;
+            for (int i = 0; i < codigo.length; i++) {
+                codigo[i] = alfabeto[resto % alfabeto.length];
+                resto /= alfabeto.length;
+            }
+            confere(new String(codigo));
+        }
+    }
+
+    @Test
+    void testDiferencialAleatorio() {
+        Random random = new Random(2024);
+        for (int n = 0; n < 200_000; n++) {
+            char[] codigo = new char[random.nextInt(9)];
+            for (int i = 0; i < codigo.length; i++) {
+                // metade das vezes um caractere "quase válido" para chegar ao fim da validação
+                codigo[i] = random.nextBoolean()
+                        ? "F0123456789A".charAt(random.nextInt(12))
+                        : (char) random.nextInt(0x3000);
+            }
+            confere(new String(codigo));
+        }
+    }
+
+    @Test
+    void testTodosOsCodigosValidos() {
+        for (int fila = 0; fila <= 88; fila++) {
+            for (int assento = 0; assento <= 88; assento++) {
+                confere(String.format("F%02dA%02d", fila, assento));
+            }
+        }
+    }
+
+    @Test
+    void testCharSequenceSemString() {
+        StringBuilder codigo = new StringBuilder("F12A08");
+        int decodificado = CodigoAssento.decodifica(codigo);
+        assertEquals(12, CodigoAssento.fila(decodificado));
+        assertEquals(8, CodigoAssento.assento(decodificado));
+    }
+
+    @Test
+    void testOcupaLugarPorBuffer() {
+        Barca barca = new Barca();
+        ByteBuffer buffer = ByteBuffer.wrap("F01A01F01A01G01A01".getBytes(StandardCharsets.US_ASCII));
+        assertEquals(3, barca.ocupaLugar(buffer, 0, 6));
+        assertEquals(1, barca.ocupaLugar(buffer, 6, 6));
+        assertEquals(0, barca.ocupaLugar(buffer, 12, 6));
+    }
+}
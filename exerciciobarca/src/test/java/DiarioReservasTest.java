@@ -0,0 +1,200 @@
+package com.vev;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DiarioReservasTest {
+
+    @TempDir
+    Path dir;
+
+    // Mesmas ocupações antes e depois de reabrir o diário
+    @Test
+    void testRecuperaBarca() throws IOException {
+        Path arquivo = dir.resolve("barca.diario");
+        // mesma sequência numa barca sem diário, para comparar
+        Barca original = new Barca();
+        try (DiarioReservas diario = DiarioReservas.abre(arquivo, 64)) {
+            Barca persistida = new Barca(diario);
+            Random random = new Random(17);
+            for (int n = 0; n < 5_000; n++) {
+                String codigo = String.format("F%02dA%02d", random.nextInt(60), random.nextInt(20));
+                assertEquals(original.ocupaLugar(codigo), persistida.ocupaLugar(codigo));
+            }
+            assertEquals(original.reservaGrupo(4), persistida.reservaGrupo(4));
+        }
+        try (DiarioReservas diario = DiarioReservas.abre(arquivo)) {
+            Barca recuperada = new Barca(diario);
+            for (int fila = 0; fila < Barca.FILAS; fila++) {
+                assertEquals(original.ocupadosNaFila(fila), recuperada.ocupadosNaFila(fila));
+            }
+            for (Zona zona : Zona.values()) {
+                assertEquals(original.proximoLugarLivre(zona), recuperada.proximoLugarLivre(zona));
+            }
+            // as novas ocupações continuam a partir do estado recuperado
+            assertEquals(original.ocupaProximoLugar(), recuperada.ocupaProximoLugar());
+        }
+    }
+
+    // A última entrada de cada assento prevalece na reconstrução
+    @Test
+    void testRecuperaLiberacoes() throws IOException {
+        Path arquivo = dir.resolve("barca.diario");
+        try (DiarioReservas diario = DiarioReservas.abre(arquivo)) {
+            Barca barca = new Barca(diario);
+            barca.ocupaLugar("F01A01");
+            barca.ocupaLugar("F01A02");
+            barca.liberaLugar("F01A01");
+            barca.liberaLugar("F01A02");
+            barca.ocupaLugar("F01A02");
+        }
+        try (DiarioReservas diario = DiarioReservas.abre(arquivo)) {
+            long[] assentos = new long[Barca.FILAS];
+            assentos[5] = 1;
+            assertEquals(5, diario.reconstroi(assentos));
+            assertEquals(1L << 2, assentos[1]);
+            assertEquals(0, assentos[5]);
+            Barca barca = new Barca(diario);
+            assertEquals(3, barca.ocupaLugar("F01A01"));
+            assertEquals(1, barca.ocupaLugar("F01A02"));
+        }
+    }
+
+    // Rejeições não vão para o diário
+    @Test
+    void testSoRegistraOcupacoes() throws IOException {
+        Path arquivo = dir.resolve("barca.diario");
+        try (DiarioReservas diario = DiarioReservas.abre(arquivo)) {
+            Barca barca = new Barca(diario);
+            assertEquals(3, barca.ocupaLugar("F01A01"));
+            assertEquals(1, barca.ocupaLugar("F01A01"));
+            assertEquals(1, barca.ocupaLugar("F30A01"));
+            assertEquals(0, barca.ocupaLugar("XYZ"));
+        }
+        assertEquals(DiarioReservas.HEADER_SIZE + DiarioReservas.ENTRY_SIZE, Files.size(arquivo));
+    }
+
+    // Falha ao gravar no meio do grupo: nenhum lugar do grupo fica ocupado
+    @Test
+    void testReservaGrupoTudoOuNadaQuandoDiarioFalha() throws Exception {
+        Path arquivo = dir.resolve("barca.diario");
+        try (DiarioReservas diario = DiarioReservas.abre(arquivo, 4 * DiarioReservas.ENTRY_SIZE)) {
+            Barca barca = new Barca(diario);
+            FileChannel falho = FileChannel.open(arquivo);
+            falho.close();
+            // grupo maior que o lote, gravado direto no arquivo
+            FileChannel canal = trocaCanal(diario, falho);
+            assertThrows(IllegalStateException.class, () -> barca.reservaGrupo(5));
+            trocaCanal(diario, canal);
+            assertEquals(0, barca.ocupadosNaFila(0));
+
+            // grupo que cabe no lote, mas só depois de gravar o que está pendente
+            assertEquals(3, barca.ocupaLugar("F02A01"));
+            assertEquals(3, barca.ocupaLugar("F02A02"));
+            trocaCanal(diario, falho);
+            assertThrows(IllegalStateException.class, () -> barca.reservaGrupo(3));
+            assertThrows(IllegalStateException.class,
+                    () -> barca.reservaGrupo(List.of("F01A01", "F01A02", "F01A03")));
+            trocaCanal(diario, canal);
+            assertEquals(0, barca.ocupadosNaFila(0));
+            assertEquals(0, barca.ocupadosNaFila(1));
+            assertEquals(CodigoAssento.empacota(0, 0), barca.proximoLugarLivre(Zona.DIANTEIRA));
+
+            assertEquals(5, barca.reservaGrupo(5).size());
+        }
+        try (DiarioReservas diario = DiarioReservas.abre(arquivo)) {
+            long[] assentos = new long[Barca.FILAS];
+            assertEquals(7, diario.reconstroi(assentos));
+            assertEquals(0b11111, assentos[0]);
+            assertEquals(0, assentos[1]);
+            assertEquals(0b110, assentos[2]);
+        }
+    }
+
+    // Um lote que falhou continua pendente e vai para o arquivo no flush seguinte
+    @Test
+    void testFalhaNaGravacaoMantemLote() throws Exception {
+        Path arquivo = dir.resolve("barca.diario");
+        try (DiarioReservas diario = DiarioReservas.abre(arquivo, 2 * DiarioReservas.ENTRY_SIZE)) {
+            diario.registra(0, 0);
+            diario.registra(0, 1);
+            FileChannel falho = FileChannel.open(arquivo);
+            falho.close();
+            FileChannel canal = trocaCanal(diario, falho);
+            assertThrows(IOException.class, () -> diario.registra(0, 2));
+            trocaCanal(diario, canal);
+            diario.registra(0, 3);
+        }
+        try (DiarioReservas diario = DiarioReservas.abre(arquivo)) {
+            long[] assentos = new long[Barca.FILAS];
+            assertEquals(3, diario.reconstroi(assentos));
+            assertEquals(0b1011, assentos[0]);
+        }
+    }
+
+    @Test
+    void testFlushGravaLote() throws IOException {
+        Path arquivo = dir.resolve("barca.diario");
+        try (DiarioReservas diario = DiarioReservas.abre(arquivo)) {
+            diario.registra(0, 0);
+            diario.registra(2, 5);
+            assertEquals(DiarioReservas.HEADER_SIZE, Files.size(arquivo));
+            diario.flush();
+            assertEquals(DiarioReservas.HEADER_SIZE + 2 * DiarioReservas.ENTRY_SIZE, Files.size(arquivo));
+        }
+    }
+
+    // Byte solto no fim (queda no meio de uma entrada) é descartado
+    @Test
+    void testDescartaEntradaIncompleta() throws IOException {
+        Path arquivo = dir.resolve("barca.diario");
+        try (DiarioReservas diario = DiarioReservas.abre(arquivo)) {
+            diario.registra(3, 4);
+        }
+        Files.write(arquivo, new byte[] {0}, StandardOpenOption.APPEND);
+        try (DiarioReservas diario = DiarioReservas.abre(arquivo)) {
+            long[] assentos = new long[Barca.FILAS];
+            assertEquals(1, diario.reconstroi(assentos));
+            assertEquals(1L << 4, assentos[3]);
+        }
+        assertEquals(DiarioReservas.HEADER_SIZE + DiarioReservas.ENTRY_SIZE, Files.size(arquivo));
+    }
+
+    @Test
+    void testRejeitaArquivoEstranho() throws IOException {
+        Path arquivo = dir.resolve("outro.bin");
+        Files.write(arquivo, new byte[] {1, 2, 3, 4, 5, 6, 7, 8});
+        assertThrows(IOException.class, () -> DiarioReservas.abre(arquivo));
+    }
+
+    @Test
+    void testRejeitaEntradaForaDaBarca() throws IOException {
+        Path arquivo = dir.resolve("barca.diario");
+        DiarioReservas.abre(arquivo).close();
+        ByteBuffer entrada = ByteBuffer.allocate(2).putShort((short) DiarioReservas.ASSENTOS);
+        Files.write(arquivo, entrada.array(), StandardOpenOption.APPEND);
+        try (DiarioReservas diario = DiarioReservas.abre(arquivo)) {
+            assertThrows(IOException.class, () -> diario.reconstroi(new long[Barca.FILAS]));
+        }
+    }
+
+    // Troca o canal do diário e retorna o anterior
+    private static FileChannel trocaCanal(DiarioReservas diario, FileChannel novo) throws Exception {
+        Field campo = DiarioReservas.class.getDeclaredField("canal");
+        campo.setAccessible(true);
+        FileChannel anterior = (FileChannel) campo.get(diario);
+        campo.set(diario, novo);
+        return anterior;
+    }
+}
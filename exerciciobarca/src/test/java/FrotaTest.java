@@ -0,0 +1,118 @@
+package com.vev;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FrotaTest {
+
+    private Frota frota;
+
+    @BeforeEach
+    void setUp() {
+        frota = new Frota(2);
+    }
+
+    // Cada travessia se comporta como uma Barca própria
+    @Test
+    void testMesmoComportamentoDaBarca() {
+        Map<Long, Barca> referencia = new HashMap<>();
+        for (long t = 0; t < 50; t++) {
+            frota.abre(t * 1_000_003);
+            referencia.put(t * 1_000_003, new Barca());
+        }
+        Random random = new Random(11);
+        for (int n = 0; n < 50_000; n++) {
+            long travessia = random.nextInt(50) * 1_000_003L;
+            String codigo = String.format("F%02dA%02d", random.nextInt(60), random.nextInt(22));
+            assertEquals(referencia.get(travessia).ocupaLugar(codigo), frota.ocupaLugar(travessia, codigo), codigo);
+        }
+        for (Map.Entry<Long, Barca> e : referencia.entrySet()) {
+            assertEquals(e.getValue().lugaresLivresNasFilas(0, Barca.FILAS - 1),
+                    Barca.FILAS * Barca.ASSENTOS_POR_FILA - frota.getQtdadeAssentosOcupados(e.getKey()));
+        }
+    }
+
+    @Test
+    void testForaDasFilas() {
+        frota.abre(1);
+        assertEquals(0, frota.ocupaLugar(1, "F60A00"));
+        assertEquals(0, frota.ocupaLugar(1, "F00A20"));
+        assertEquals(0, frota.ocupaLugar(1, "XYZ"));
+    }
+
+    @Test
+    void testTravessiaNaoAberta() {
+        assertThrows(IllegalArgumentException.class, () -> frota.ocupaLugar(7, "F00A00"));
+        frota.abre(7);
+        assertThrows(IllegalArgumentException.class, () -> frota.abre(7));
+    }
+
+    @Test
+    void testExportaECarrega() {
+        frota.abre(1);
+        frota.ocupaLugar(1, "F00A00");
+        frota.ocupaLugar(1, "F02A18");
+        long[] estado = frota.exporta(1);
+        assertTrue(frota.descarta(1));
+        assertFalse(frota.contem(1));
+        assertFalse(frota.descarta(1));
+
+        frota.carrega(2, estado);
+        assertEquals(2, frota.getQtdadeAssentosOcupados(2));
+        assertEquals(1, frota.ocupaLugar(2, "F00A00"));
+        assertEquals(1, frota.ocupaLugar(2, "F02A18"));
+        assertEquals(3, frota.ocupaLugar(2, "F02A17"));
+    }
+
+    @Test
+    void testCarregaEstadoInvalido() {
+        assertThrows(IllegalArgumentException.class, () -> frota.carrega(1, new long[3]));
+        long[] estado = new long[Frota.PALAVRAS_POR_BARCA];
+        estado[0] = 1L << 60;
+        assertThrows(IllegalArgumentException.class, () -> frota.carrega(1, estado));
+        assertFalse(frota.contem(1));
+    }
+
+    // Posição reaproveitada começa vazia
+    @Test
+    void testReaproveitaPosicao() {
+        frota.abre(1);
+        frota.ocupaLugar(1, "F00A00");
+        frota.descarta(1);
+        frota.abre(2);
+        assertEquals(0, frota.getQtdadeAssentosOcupados(2));
+        assertEquals(3, frota.ocupaLugar(2, "F00A00"));
+    }
+
+    // Abre e descarta muitas travessias misturadas; a tabela continua achando
+    // todas as que estão abertas
+    @Test
+    void testAbreEDescartaMuitas() {
+        Random random = new Random(3);
+        Map<Long, Integer> abertas = new HashMap<>();
+        for (int n = 0; n < 20_000; n++) {
+            long travessia = random.nextInt(2_000);
+            if (abertas.containsKey(travessia)) {
+                assertEquals((int) abertas.get(travessia), frota.getQtdadeAssentosOcupados(travessia));
+                assertTrue(frota.descarta(travessia));
+                abertas.remove(travessia);
+            } else {
+                frota.abre(travessia);
+                int passageiros = random.nextInt(5);
+                for (int p = 0; p < passageiros; p++) {
+                    frota.ocupaLugar(travessia, String.format("F00A%02d", p));
+                }
+                abertas.put(travessia, passageiros);
+            }
+        }
+        assertEquals(abertas.size(), frota.tamanho());
+        for (long travessia = 0; travessia < 2_000; travessia++) {
+            assertEquals(abertas.containsKey(travessia), frota.contem(travessia));
+        }
+    }
+}
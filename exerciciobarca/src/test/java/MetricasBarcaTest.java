@@ -0,0 +1,89 @@
+package com.vev;
+
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MetricasBarcaTest {
+
+    private Barca barca;
+    private MetricasBarca metricas;
+
+    @BeforeEach
+    void setUp() {
+        barca = new Barca();
+        metricas = new MetricasBarca();
+        barca.setMetricas(metricas);
+    }
+
+    @Test
+    void testContaPorStatus() {
+        barca.ocupaLugar("XYZ");
+        barca.ocupaLugar("F01A01");
+        barca.ocupaLugar("F01A01");
+        barca.ocupaLugar("F30A01");
+        barca.ocupaLugar(ByteBuffer.wrap("F02A02".getBytes(StandardCharsets.US_ASCII)), 0, 6);
+        assertEquals(1, metricas.getInvalidos());
+        assertEquals(2, metricas.getOcupados());
+        assertEquals(0, metricas.getBloqueados());
+        assertEquals(2, metricas.getAtribuidos());
+        assertEquals(5, metricas.latencia().total());
+    }
+
+    @Test
+    void testContaBloqueados() {
+        for (int n = 0; n < 101; n++) {
+            barca.ocupaProximoLugar();
+        }
+        barca.ocupaLugar("F06A05");
+        assertEquals(1, metricas.getBloqueados());
+        // ocupaProximoLugar não passa pelas métricas de ocupaLugar
+        assertEquals(0, metricas.getAtribuidos());
+    }
+
+    @Test
+    void testDesligadas() {
+        barca.setMetricas(null);
+        assertEquals(3, barca.ocupaLugar("F01A01"));
+        assertNull(barca.getMetricas());
+        assertEquals(0, metricas.getAtribuidos());
+    }
+
+    @Test
+    void testZera() {
+        barca.ocupaLugar("F01A01");
+        metricas.zera();
+        assertEquals(0, metricas.getAtribuidos());
+        assertEquals(0, metricas.getLatenciaMaximaNanos());
+    }
+
+    @Test
+    void testMBean() throws Exception {
+        ObjectName nome = metricas.registraMBean("teste-" + System.nanoTime());
+        barca.ocupaLugar("F01A01");
+        MBeanServer servidor = ManagementFactory.getPlatformMBeanServer();
+        assertEquals(1L, servidor.getAttribute(nome, "Atribuidos"));
+        servidor.unregisterMBean(nome);
+    }
+
+    @Test
+    void testHistograma() {
+        HistogramaLog histograma = new HistogramaLog();
+        for (long valor = 0; valor < 100_000; valor += 7) {
+            int balde = HistogramaLog.balde(valor);
+            assertTrue(valor <= HistogramaLog.limiteSuperior(balde));
+            assertTrue(balde == 0 || valor > HistogramaLog.limiteSuperior(balde - 1));
+            histograma.registra(valor);
+        }
+        long p50 = histograma.percentil(50);
+        assertTrue(p50 >= 50_000 && p50 <= 50_000 * 9 / 8, "p50 " + p50);
+        assertEquals(HistogramaLog.BALDES - 1, HistogramaLog.balde(Long.MAX_VALUE));
+    }
+}
@@ -0,0 +1,99 @@
+package com.vev;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RodaTemporizadoraTest {
+
+    private long agora;
+    private RodaTemporizadora roda;
+
+    @BeforeEach
+    void setUp() {
+        agora = 1_000_000;
+        roda = new RodaTemporizadora(Duration.ofMillis(10), 8, () -> agora);
+    }
+
+    @Test
+    void testVenceNoPrazo() {
+        List<String> vencidos = new ArrayList<>();
+        roda.agenda(Duration.ofMillis(25), () -> vencidos.add("a"));
+        agora += 20;
+        assertEquals(0, roda.avanca());
+        agora += 10;
+        assertEquals(1, roda.avanca());
+        assertEquals(List.of("a"), vencidos);
+        assertEquals(0, roda.pendentes());
+    }
+
+    // Prazos maiores que uma volta da roda (8 posições x 10 ms) esperam a sua vez
+    @Test
+    void testPrazoMaiorQueUmaVolta() {
+        List<String> vencidos = new ArrayList<>();
+        roda.agenda(Duration.ofMillis(200), () -> vencidos.add("longo"));
+        roda.agenda(Duration.ofMillis(40), () -> vencidos.add("curto"));
+        for (int i = 0; i < 19; i++) {
+            agora += 10;
+            roda.avanca();
+        }
+        assertEquals(List.of("curto"), vencidos);
+        agora += 10;
+        roda.avanca();
+        assertEquals(List.of("curto", "longo"), vencidos);
+    }
+
+    // Muito tempo sem avanca: uma volta só basta para achar todos os vencidos
+    @Test
+    void testAtrasoLongoSemAvanca() {
+        int[] vencidos = new int[1];
+        for (int i = 0; i < 100; i++) {
+            roda.agenda(Duration.ofMillis(i * 7), () -> vencidos[0]++);
+        }
+        roda.agenda(Duration.ofHours(1), () -> fail("não deveria vencer"));
+        agora += 60_000;
+        assertEquals(100, roda.avanca());
+        assertEquals(100, vencidos[0]);
+        assertEquals(1, roda.pendentes());
+    }
+
+    @Test
+    void testCancela() {
+        RodaTemporizadora.Temporizador t = roda.agenda(Duration.ofMillis(10), () -> fail("cancelado"));
+        assertTrue(t.ativo());
+        assertTrue(t.cancela());
+        assertFalse(t.cancela());
+        assertFalse(t.ativo());
+        agora += 100;
+        assertEquals(0, roda.avanca());
+    }
+
+    // Vencidos no mesmo avanca já não podem ser cancelados pelas ações dos outros
+    @Test
+    void testAcaoNaoCancelaVencido() {
+        List<String> vencidos = new ArrayList<>();
+        RodaTemporizadora.Temporizador[] segundo = new RodaTemporizadora.Temporizador[1];
+        roda.agenda(Duration.ofMillis(10), () -> {
+            vencidos.add("primeiro");
+            assertFalse(segundo[0].cancela());
+        });
+        segundo[0] = roda.agenda(Duration.ofMillis(10), () -> vencidos.add("segundo"));
+        agora += 10;
+        roda.avanca();
+        assertEquals(List.of("primeiro", "segundo"), vencidos);
+    }
+
+    // Mesmo com atraso zero a ação só roda num avanca posterior
+    @Test
+    void testAtrasoZero() {
+        int[] vencidos = new int[1];
+        roda.agenda(Duration.ZERO, () -> vencidos[0]++);
+        assertEquals(0, roda.avanca());
+        agora += 10;
+        assertEquals(1, roda.avanca());
+    }
+}
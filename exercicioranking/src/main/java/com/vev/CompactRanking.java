@@ -0,0 +1,224 @@
+package com.vev;
+
+// Ranking com armazenamento em arrays paralelos (scores em int[], nomes em
+// String[], instantes em long[]). A inserção e as comparações não alocam nem
+// seguem ponteiros para objetos Record; um Record só é criado quando alguém
+// pede getScore(i).
+public class CompactRanking implements Leaderboard {
+    private final int capacity;
+    // Min-heap em arrays paralelos: posição 0 é sempre o pior registro
+    private final int[] scores;
+    private final String[] names;
+    private final long[] timestamps;
+    private final long[] seq;
+    private long nextSeq;
+    private int pos;
+
+    // Visão ordenada (decrescente), reconstruída só quando alguém a consulta
+    private final int[] sortedScores;
+    private final String[] sortedNames;
+    private final long[] sortedTimestamps;
+    private final long[] sortedSeq;
+    private boolean sortedValid;
+
+    public CompactRanking() {
+        this(Ranking.DEFAULT_CAPACITY);
+    }
+
+    public CompactRanking(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+        scores = new int[capacity];
+        names = new String[capacity];
+        timestamps = new long[capacity];
+        seq = new long[capacity];
+        sortedScores = new int[capacity];
+        sortedNames = new String[capacity];
+        sortedTimestamps = new long[capacity];
+        sortedSeq = new long[capacity];
+        pos = 0;
+        sortedValid = true;
+    }
+
+    private static boolean worse(int scoreA, long seqA, int scoreB, long seqB) {
+        if (scoreA != scoreB) {
+            return scoreA < scoreB;
+        }
+        return seqA > seqB;
+    }
+
+    private void siftUp(int i) {
+        int score = scores[i];
+        String name = names[i];
+        long time = timestamps[i];
+        long s = seq[i];
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (!worse(score, s, scores[parent], seq[parent])) {
+                break;
+            }
+            scores[i] = scores[parent];
+            names[i] = names[parent];
+            timestamps[i] = timestamps[parent];
+            seq[i] = seq[parent];
+            i = parent;
+        }
+        scores[i] = score;
+        names[i] = name;
+        timestamps[i] = time;
+        seq[i] = s;
+    }
+
+    private static void siftDown(int[] hScores, String[] hNames, long[] hTimes, long[] hSeq, int i, int n) {
+        int score = hScores[i];
+        String name = hNames[i];
+        long time = hTimes[i];
+        long s = hSeq[i];
+        int half = n >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            int right = child + 1;
+            if (right < n && worse(hScores[right], hSeq[right], hScores[child], hSeq[child])) {
+                child = right;
+            }
+            if (!worse(hScores[child], hSeq[child], score, s)) {
+                break;
+            }
+            hScores[i] = hScores[child];
+            hNames[i] = hNames[child];
+            hTimes[i] = hTimes[child];
+            hSeq[i] = hSeq[child];
+            i = child;
+        }
+        hScores[i] = score;
+        hNames[i] = name;
+        hTimes[i] = time;
+        hSeq[i] = s;
+    }
+
+    private void ensureSorted() {
+        if (sortedValid) {
+            return;
+        }
+        System.arraycopy(scores, 0, sortedScores, 0, pos);
+        System.arraycopy(names, 0, sortedNames, 0, pos);
+        System.arraycopy(timestamps, 0, sortedTimestamps, 0, pos);
+        System.arraycopy(seq, 0, sortedSeq, 0, pos);
+        for (int end = pos - 1; end > 0; end--) {
+            int score = sortedScores[0];
+            String name = sortedNames[0];
+            long time = sortedTimestamps[0];
+            long s = sortedSeq[0];
+            sortedScores[0] = sortedScores[end];
+            sortedNames[0] = sortedNames[end];
+            sortedTimestamps[0] = sortedTimestamps[end];
+            sortedSeq[0] = sortedSeq[end];
+            sortedScores[end] = score;
+            sortedNames[end] = name;
+            sortedTimestamps[end] = time;
+            sortedSeq[end] = s;
+            siftDown(sortedScores, sortedNames, sortedTimestamps, sortedSeq, 0, end);
+        }
+        sortedValid = true;
+    }
+
+    // Insere um novo registro, com o instante atual, sem alocar nenhum objeto
+    // Retorna true se a inserção foi possível
+    public boolean add(String name, int score) {
+        return add(name, score, System.currentTimeMillis());
+    }
+
+    // Insere um novo registro sem alocar nenhum objeto
+    // Retorna true se a inserção foi possível
+    public boolean add(String name, int score, long timestamp) {
+        if (pos < capacity) {
+            scores[pos] = score;
+            names[pos] = name;
+            timestamps[pos] = timestamp;
+            seq[pos] = nextSeq++;
+            siftUp(pos);
+            pos++;
+            sortedValid = false;
+            return true;
+        }
+        if (score >= scores[0]) {
+            scores[0] = score;
+            names[0] = name;
+            timestamps[0] = timestamp;
+            seq[0] = nextSeq++;
+            siftDown(scores, names, timestamps, seq, 0, pos);
+            sortedValid = false;
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public boolean add(Record record) {
+        return add(record.getName(), record.getScore(), record.getTimestamp());
+    }
+
+    @Override
+    public int capacity() {
+        return capacity;
+    }
+
+    @Override
+    public int numRecords() {
+        return pos;
+    }
+
+    // Score na posição i, sem criar o Record correspondente
+    public int scoreAt(int i) {
+        if (i < 0 || i >= pos) {
+            throw new IndexOutOfBoundsException(i);
+        }
+        ensureSorted();
+        return sortedScores[i];
+    }
+
+    // Nome na posição i, sem criar o Record correspondente
+    public String nameAt(int i) {
+        if (i < 0 || i >= pos) {
+            throw new IndexOutOfBoundsException(i);
+        }
+        ensureSorted();
+        return sortedNames[i];
+    }
+
+    // Instante do score na posição i, sem criar o Record correspondente
+    public long timestampAt(int i) {
+        if (i < 0 || i >= pos) {
+            throw new IndexOutOfBoundsException(i);
+        }
+        ensureSorted();
+        return sortedTimestamps[i];
+    }
+
+    @Override
+    public Record getScore(int i) {
+        if (i < 0 || i >= pos) {
+            return null;
+        }
+        ensureSorted();
+        return new Record(sortedNames[i], sortedScores[i], sortedTimestamps[i]);
+    }
+
+    @Override
+    public Record worstScore() {
+        if (pos == 0) {
+            throw new ArrayIndexOutOfBoundsException(-1);
+        }
+        return new Record(names[0], scores[0], timestamps[0]);
+    }
+
+    @Override
+    public Record bestScore() {
+        if (pos == 0) {
+            return null;
+        }
+        return getScore(0);
+    }
+}
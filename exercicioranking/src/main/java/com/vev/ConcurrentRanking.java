@@ -0,0 +1,96 @@
+package com.vev;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+// Ranking seguro para várias threads. Depois que o ranking enche, o pior
+// score só pode subir; por isso ele é publicado em um campo volatile e
+// registros abaixo dele são rejeitados sem pegar o lock.
+public class ConcurrentRanking implements Leaderboard {
+    private final Ranking ranking;
+    private final ReentrantLock lock = new ReentrantLock();
+    // Pior score quando o ranking está cheio; Long.MIN_VALUE enquanto há vagas
+    private volatile long floor = Long.MIN_VALUE;
+
+    public ConcurrentRanking() {
+        this(Ranking.DEFAULT_CAPACITY);
+    }
+
+    public ConcurrentRanking(int capacity) {
+        ranking = new Ranking(capacity);
+    }
+
+    @Override
+    public boolean add(Record record) {
+        // O piso nunca desce, então um score abaixo dele seria rejeitado
+        // também por qualquer add que viesse depois desta leitura
+        if (record.getScore() < floor) {
+            return false;
+        }
+        lock.lock();
+        try {
+            boolean added = ranking.add(record);
+            if (added && ranking.numRecords() == ranking.capacity()) {
+                floor = ranking.worstScore().getScore();
+            }
+            return added;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int capacity() {
+        return ranking.capacity();
+    }
+
+    @Override
+    public int numRecords() {
+        lock.lock();
+        try {
+            return ranking.numRecords();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Record getScore(int i) {
+        lock.lock();
+        try {
+            return ranking.getScore(i);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Record bestScore() {
+        lock.lock();
+        try {
+            return ranking.bestScore();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Record worstScore() {
+        lock.lock();
+        try {
+            return ranking.worstScore();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Cópia imutável sem passar pelo lock: as escritas já são serializadas
+    // pelo lock, que é o que o seqlock de Ranking.snapshot() exige
+    public RankingSnapshot snapshot() {
+        return ranking.snapshot();
+    }
+
+    @Override
+    public Record[] toArray() {
+        return ranking.toArray();
+    }
+}
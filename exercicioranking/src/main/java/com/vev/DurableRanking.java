@@ -0,0 +1,536 @@
+package com.vev;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32C;
+
+// Ranking com durabilidade: cada inserção aceita (e a remoção que ela causa)
+// vai para um write-ahead log. As entradas são acumuladas em memória e
+// gravadas com um único fsync quando o lote atinge um tamanho ou uma idade
+// máxima (group commit).
+//
+// O diretório guarda gerações: snapshot-<g>.bin (formato do RankingFile) tem o
+// estado do ranking no início de wal-<g>.log. Quando o log da geração atual
+// passa do limite, uma nova geração começa e o snapshot é gravado em segundo
+// plano; depois disso os arquivos das gerações anteriores são apagados. A
+// recuperação parte do snapshot mais recente e repete só o final do log.
+//
+// Formato de cada segmento do log:
+//
+//   cabeçalho (8 bytes): magic, versão do formato
+//   entradas: tipo (1 byte), score, instante do score (long), tamanho do
+//   nome (-1 para null), nome em UTF-8 e o CRC32C dos bytes anteriores da
+//   entrada
+//
+// Todos os inteiros são big-endian.
+//
+// O lote pendente é trocado por um buffer vazio com o monitor do ranking e
+// gravado (com o fsync) fora dele, então as inserções não esperam o disco;
+// flushLock só ordena as gravações entre si. Se uma gravação ou fsync
+// falha, não dá para saber o que chegou ao disco: o log é marcado como
+// falho e toda inserção ou flush seguinte lança a exceção.
+public class DurableRanking implements Leaderboard, Closeable {
+    public static final int DEFAULT_GROUP_COMMIT_BYTES = 64 * 1024;
+    public static final long DEFAULT_GROUP_COMMIT_MILLIS = 10;
+    public static final long DEFAULT_CHECKPOINT_BYTES = 16L * 1024 * 1024;
+
+    static final int WAL_MAGIC = 0x524E4B4C; // "RNKL"
+    // Versão 2 acrescentou o instante de cada registro às entradas
+    static final int WAL_VERSION = 2;
+    static final int WAL_HEADER_SIZE = 8;
+    // tipo, score, instante e tamanho do nome
+    static final int ENTRY_HEADER_SIZE = 17;
+    static final int CRC_SIZE = 4;
+    // Tamanho dos pedaços em que um segmento do log é lido na recuperação
+    static final int REPLAY_CHUNK = 64 * 1024;
+
+    static final byte INSERT = 1;
+    static final byte EVICT = 2;
+
+    private final Path dir;
+    private final Ranking ranking;
+    private final int groupCommitBytes;
+    private final long checkpointBytes;
+    private final ScheduledExecutorService background;
+    private final Object flushLock = new Object();
+    private final CRC32C crc = new CRC32C();
+
+    private int generation;
+    private FileChannel wal;
+    private long walSize;
+    private ByteBuffer pending;
+    // Buffer do lote anterior, reaproveitado na próxima troca; null enquanto grava
+    private ByteBuffer spare;
+    private boolean checkpointRunning;
+    private long recoveredEntries;
+    private boolean closed;
+    private IOException failure;
+
+    private DurableRanking(Path dir, Ranking ranking, int generation, int groupCommitBytes,
+            long groupCommitMillis, long checkpointBytes) throws IOException {
+        this.dir = dir;
+        this.ranking = ranking;
+        this.generation = generation;
+        this.groupCommitBytes = groupCommitBytes;
+        this.checkpointBytes = checkpointBytes;
+        pending = ByteBuffer.allocate(groupCommitBytes + 64);
+        spare = ByteBuffer.allocate(groupCommitBytes + 64);
+        background = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "durable-ranking-" + dir.getFileName());
+            thread.setDaemon(true);
+            return thread;
+        });
+        background.scheduleWithFixedDelay(this::flushQuietly, groupCommitMillis, groupCommitMillis,
+                TimeUnit.MILLISECONDS);
+    }
+
+    public static DurableRanking open(Path dir, int capacity) throws IOException {
+        return open(dir, capacity, DEFAULT_GROUP_COMMIT_BYTES, DEFAULT_GROUP_COMMIT_MILLIS,
+                DEFAULT_CHECKPOINT_BYTES);
+    }
+
+    // Abre (ou cria) o ranking guardado em dir. Se já houver um snapshot, a
+    // capacidade gravada nele prevalece.
+    public static DurableRanking open(Path dir, int capacity, int groupCommitBytes, long groupCommitMillis,
+            long checkpointBytes) throws IOException {
+        Files.createDirectories(dir);
+        int snapshotGeneration = -1;
+        int lastGeneration = 0;
+        for (int g : generations(dir, "snapshot-", ".bin")) {
+            snapshotGeneration = Math.max(snapshotGeneration, g);
+        }
+        for (int g : generations(dir, "wal-", ".log")) {
+            lastGeneration = Math.max(lastGeneration, g);
+        }
+        lastGeneration = Math.max(lastGeneration, snapshotGeneration);
+        Ranking ranking = snapshotGeneration >= 0
+                ? RankingFile.load(snapshot(dir, snapshotGeneration))
+                : new Ranking(capacity);
+
+        long entries = 0;
+        int first = Math.max(snapshotGeneration, 0);
+        for (int g = first; g <= lastGeneration; g++) {
+            Path log = wal(dir, g);
+            if (Files.exists(log)) {
+                entries += replay(log, ranking);
+            }
+        }
+
+        DurableRanking durable = new DurableRanking(dir, ranking, lastGeneration, groupCommitBytes,
+                groupCommitMillis, checkpointBytes);
+        durable.recoveredEntries = entries;
+        durable.wal = openSegment(wal(dir, lastGeneration));
+        durable.walSize = durable.wal.size();
+        durable.deleteBefore(first);
+        return durable;
+    }
+
+    // Abre o segmento para acrescentar entradas, gravando o cabeçalho se ele
+    // ainda não existe
+    private static FileChannel openSegment(Path log) throws IOException {
+        FileChannel channel = FileChannel.open(log, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+        try {
+            if (channel.size() < WAL_HEADER_SIZE) {
+                channel.truncate(0);
+                ByteBuffer header = ByteBuffer.allocate(WAL_HEADER_SIZE);
+                header.putInt(WAL_MAGIC).putInt(WAL_VERSION).flip();
+                while (header.hasRemaining()) {
+                    channel.write(header);
+                }
+                channel.force(true);
+            }
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+        return channel;
+    }
+
+    // Repete as inserções do log. As remoções são consequência das inserções e
+    // não precisam ser aplicadas. A partir da primeira entrada incompleta ou
+    // com CRC errado (queda durante a gravação) o log é descartado e o
+    // arquivo é truncado nela. O segmento é lido em pedaços de REPLAY_CHUNK
+    // bytes (maiores só para uma entrada que não caiba em um), então um log
+    // que cresceu com checkpoints falhando não precisa caber no heap.
+    private static long replay(Path log, Ranking ranking) throws IOException {
+        long entries = 0;
+        try (FileChannel channel = FileChannel.open(log, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long size = channel.size();
+            if (size < WAL_HEADER_SIZE) {
+                // queda antes de o cabeçalho chegar ao disco: segmento vazio
+                channel.truncate(0);
+                return 0;
+            }
+            ByteBuffer buffer = fill(channel, ByteBuffer.allocate(REPLAY_CHUNK).flip(), WAL_HEADER_SIZE);
+            if (buffer.getInt() != WAL_MAGIC) {
+                throw new IOException("not a ranking log: " + log);
+            }
+            int version = buffer.getInt();
+            if (version != WAL_VERSION) {
+                throw new IOException("unsupported log version " + version + ": " + log);
+            }
+            CRC32C crc = new CRC32C();
+            long valid = WAL_HEADER_SIZE;
+            while (true) {
+                buffer = fill(channel, buffer, ENTRY_HEADER_SIZE + CRC_SIZE);
+                if (buffer.remaining() < ENTRY_HEADER_SIZE + CRC_SIZE) {
+                    break;
+                }
+                int start = buffer.position();
+                byte type = buffer.get(start);
+                int length = buffer.getInt(start + ENTRY_HEADER_SIZE - 4);
+                if ((type != INSERT && type != EVICT) || length < -1
+                        || length > size - valid - ENTRY_HEADER_SIZE - CRC_SIZE) {
+                    break;
+                }
+                int entrySize = ENTRY_HEADER_SIZE + Math.max(length, 0) + CRC_SIZE;
+                buffer = fill(channel, buffer, entrySize);
+                if (buffer.remaining() < entrySize) {
+                    break;
+                }
+                start = buffer.position();
+                crc.reset();
+                crc.update(buffer.array(), start, entrySize - CRC_SIZE);
+                if (buffer.getInt(start + entrySize - CRC_SIZE) != (int) crc.getValue()) {
+                    break;
+                }
+                if (type == INSERT) {
+                    String name = length < 0 ? null
+                            : new String(buffer.array(), start + ENTRY_HEADER_SIZE, length, StandardCharsets.UTF_8);
+                    ranking.add(new Record(name, buffer.getInt(start + 1), buffer.getLong(start + 5)));
+                }
+                buffer.position(start + entrySize);
+                entries++;
+                valid += entrySize;
+            }
+            if (valid < size) {
+                channel.truncate(valid);
+            }
+        }
+        return entries;
+    }
+
+    // Garante pelo menos needed bytes a partir da posição do buffer (em modo
+    // de leitura), lendo mais do canal; só fica com menos no fim do arquivo.
+    // Retorna um buffer maior quando needed não cabe no atual.
+    private static ByteBuffer fill(FileChannel channel, ByteBuffer buffer, int needed) throws IOException {
+        if (buffer.remaining() >= needed) {
+            return buffer;
+        }
+        if (buffer.capacity() < needed) {
+            buffer = ByteBuffer.allocate(needed).put(buffer);
+        } else {
+            buffer.compact();
+        }
+        while (buffer.position() < needed && channel.read(buffer) >= 0) {
+            // lê até ter a entrada inteira ou chegar ao fim do arquivo
+        }
+        return buffer.flip();
+    }
+
+    // O lote só é gravado depois de soltar o monitor, para que as outras
+    // inserções não esperem o fsync
+    @Override
+    public boolean add(Record record) {
+        boolean full;
+        synchronized (this) {
+            ensureOpen();
+            Record evicted = ranking.numRecords() == ranking.capacity() ? ranking.worstScore() : null;
+            if (!ranking.add(record)) {
+                return false;
+            }
+            append(INSERT, record);
+            if (evicted != null) {
+                append(EVICT, evicted);
+            }
+            full = pending.position() >= groupCommitBytes;
+        }
+        if (full) {
+            try {
+                flush();
+            } catch (IOException e) {
+                throw new IllegalStateException("could not write ranking log in " + dir, e);
+            }
+        }
+        return true;
+    }
+
+    // Chamado com o monitor. Enquanto um lote está sendo gravado o pendente
+    // pode passar do tamanho do group commit; nesse caso ele cresce.
+    private void append(byte type, Record record) {
+        byte[] name = record.getName() == null ? null : record.getName().getBytes(StandardCharsets.UTF_8);
+        int size = ENTRY_HEADER_SIZE + (name == null ? 0 : name.length) + CRC_SIZE;
+        if (pending.remaining() < size) {
+            ByteBuffer larger = ByteBuffer.allocate(Math.max(2 * pending.capacity(), pending.position() + size));
+            pending.flip();
+            larger.put(pending);
+            pending = larger;
+        }
+        int start = pending.position();
+        pending.put(type).putInt(record.getScore()).putLong(record.getTimestamp())
+                .putInt(name == null ? -1 : name.length);
+        if (name != null) {
+            pending.put(name);
+        }
+        crc.reset();
+        crc.update(pending.array(), start, pending.position() - start);
+        pending.putInt((int) crc.getValue());
+    }
+
+    // Troca o lote pendente por um buffer vazio e o retorna. Chamado com o monitor.
+    private ByteBuffer takePending() {
+        ByteBuffer batch = pending;
+        pending = spare != null ? spare : ByteBuffer.allocate(groupCommitBytes + 64);
+        spare = null;
+        return batch;
+    }
+
+    // Grava o lote com um único fsync e retorna quantos bytes foram gravados.
+    // Chamado com flushLock, sem o monitor.
+    private long writeBatch(FileChannel channel, ByteBuffer batch) throws IOException {
+        batch.flip();
+        long written = 0;
+        try {
+            while (batch.hasRemaining()) {
+                written += channel.write(batch);
+            }
+            channel.force(false);
+        } catch (IOException e) {
+            synchronized (this) {
+                if (failure == null) {
+                    failure = e;
+                }
+            }
+            throw e;
+        }
+        batch.clear();
+        return written;
+    }
+
+    // Grava as entradas pendentes no log com um único fsync
+    public void flush() throws IOException {
+        synchronized (flushLock) {
+            ByteBuffer batch;
+            FileChannel channel;
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                if (failure != null) {
+                    throw new IOException("ranking log in " + dir + " failed earlier", failure);
+                }
+                if (pending.position() == 0) {
+                    return;
+                }
+                batch = takePending();
+                channel = wal;
+            }
+            long written = writeBatch(channel, batch);
+            boolean startCheckpoint;
+            synchronized (this) {
+                walSize += written;
+                spare = batch;
+                startCheckpoint = walSize >= checkpointBytes && !checkpointRunning && !background.isShutdown();
+                if (startCheckpoint) {
+                    checkpointRunning = true;
+                }
+            }
+            if (startCheckpoint) {
+                try {
+                    background.execute(this::checkpointQuietly);
+                } catch (RejectedExecutionException e) {
+                    // close() começou; o checkpoint fica para a próxima abertura
+                    synchronized (this) {
+                        checkpointRunning = false;
+                    }
+                }
+            }
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (IOException e) {
+            // o log fica marcado como falho e a próxima inserção ou flush explícito relata o erro
+        }
+    }
+
+    // Inicia uma nova geração do log e grava o snapshot correspondente
+    public void checkpoint() throws IOException {
+        Ranking copy;
+        int target;
+        synchronized (flushLock) {
+            synchronized (this) {
+                ensureOpen();
+                target = generation + 1;
+            }
+            Path nextPath = wal(dir, target);
+            Files.deleteIfExists(nextPath);
+            FileChannel next = openSegment(nextPath);
+            ByteBuffer batch;
+            FileChannel old;
+            synchronized (this) {
+                // O que está pendente aconteceu antes da cópia e vai para o
+                // segmento antigo; o que vier depois vai para o novo
+                batch = takePending();
+                copy = copy();
+                old = wal;
+                wal = next;
+                walSize = next.size();
+                generation = target;
+            }
+            try {
+                writeBatch(old, batch);
+            } finally {
+                synchronized (this) {
+                    spare = batch;
+                }
+                old.close();
+            }
+        }
+        RankingFile.write(copy, snapshot(dir, target));
+        deleteBefore(target);
+    }
+
+    private void checkpointQuietly() {
+        try {
+            checkpoint();
+        } catch (IOException | IllegalStateException e) {
+            // o log continua válido; a próxima tentativa ocorre no próximo flush
+        } finally {
+            synchronized (this) {
+                checkpointRunning = false;
+            }
+        }
+    }
+
+    private Ranking copy() {
+        int n = ranking.numRecords();
+        Record[] ordered = new Record[n];
+        for (int i = 0; i < n; i++) {
+            ordered[i] = ranking.getScore(i);
+        }
+        Ranking copy = new Ranking(ranking.capacity());
+        copy.load(ordered, n);
+        return copy;
+    }
+
+    private void deleteBefore(int g) throws IOException {
+        for (int old : generations(dir, "snapshot-", ".bin")) {
+            if (old < g) {
+                Files.deleteIfExists(snapshot(dir, old));
+            }
+        }
+        for (int old : generations(dir, "wal-", ".log")) {
+            if (old < g) {
+                Files.deleteIfExists(wal(dir, old));
+            }
+        }
+    }
+
+    // Número de entradas repetidas a partir do log na abertura
+    public long recoveredEntries() {
+        return recoveredEntries;
+    }
+
+    @Override
+    public void close() throws IOException {
+        background.shutdown();
+        try {
+            background.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (flushLock) {
+            try {
+                flush();
+            } finally {
+                synchronized (this) {
+                    if (!closed) {
+                        closed = true;
+                        wal.close();
+                    }
+                }
+            }
+        }
+    }
+
+    private void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException("ranking is closed");
+        }
+        if (failure != null) {
+            throw new IllegalStateException("ranking log in " + dir + " failed earlier", failure);
+        }
+    }
+
+    @Override
+    public int capacity() {
+        return ranking.capacity();
+    }
+
+    @Override
+    public synchronized int numRecords() {
+        return ranking.numRecords();
+    }
+
+    @Override
+    public synchronized Record getScore(int i) {
+        return ranking.getScore(i);
+    }
+
+    @Override
+    public synchronized Record bestScore() {
+        return ranking.bestScore();
+    }
+
+    @Override
+    public synchronized Record worstScore() {
+        return ranking.worstScore();
+    }
+
+    @Override
+    public synchronized Record[] toArray() {
+        return ranking.toArray();
+    }
+
+    private static Path snapshot(Path dir, int generation) {
+        return dir.resolve("snapshot-" + generation + ".bin");
+    }
+
+    private static Path wal(Path dir, int generation) {
+        return dir.resolve("wal-" + generation + ".log");
+    }
+
+    private static List<Integer> generations(Path dir, String prefix, String suffix) throws IOException {
+        List<Integer> result = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, prefix + "*" + suffix)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                try {
+                    result.add(Integer.parseInt(name.substring(prefix.length(), name.length() - suffix.length())));
+                } catch (NumberFormatException e) {
+                    // arquivo que não pertence ao ranking
+                }
+            }
+        }
+        Collections.sort(result);
+        return result;
+    }
+}
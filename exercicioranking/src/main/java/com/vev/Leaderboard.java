@@ -0,0 +1,10 @@
+package com.vev;
+
+// Operações comuns às implementações de ranking: registros mantidos em ordem
+// decrescente de score, limitados à capacidade
+public interface Leaderboard extends LeaderboardView {
+
+    // Insere um novo registro, se possível, mantendo a ordenação
+    // Retorna true se a inserção foi possível
+    boolean add(Record record);
+}
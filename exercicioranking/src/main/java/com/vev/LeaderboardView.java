@@ -0,0 +1,30 @@
+package com.vev;
+
+// Leitura de um ranking: registros em ordem decrescente de score, limitados à
+// capacidade. Implementada sozinha pelas cópias somente leitura (snapshots e
+// arquivos mapeados), que não têm add.
+public interface LeaderboardView {
+
+    int capacity();
+
+    int numRecords();
+
+    // Registro na posição i (0 é o melhor) ou null se i for inválido
+    Record getScore(int i);
+
+    Record bestScore();
+
+    Record worstScore();
+
+    // Todos os registros, em ordem decrescente, numa cópia tirada de uma vez.
+    // Quem pode mudar enquanto é lido por outra thread sobrescreve para copiar
+    // com o próprio lock (ou seqlock); ler getScore(i) um a um poderia pular
+    // ou repetir registros.
+    default Record[] toArray() {
+        Record[] records = new Record[numRecords()];
+        for (int i = 0; i < records.length; i++) {
+            records[i] = getScore(i);
+        }
+        return records;
+    }
+}
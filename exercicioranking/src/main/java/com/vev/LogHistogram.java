@@ -0,0 +1,95 @@
+package com.vev;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Histograma de valores não negativos com baldes log-lineares, no estilo do
+// HdrHistogram: valores até 7 têm balde próprio e cada potência de 2 acima
+// disso é dividida em 8 baldes, então o erro relativo fica abaixo de 12,5%
+// em toda a faixa de long com 488 contadores fixos. Gravar é um incremento
+// atômico, seguro para várias threads.
+public class LogHistogram {
+    static final int SUB_BUCKET_BITS = 3;
+    static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+    static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) Math.max(value, 0);
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BUCKET_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) ((value >>> shift) & (SUB_BUCKETS - 1));
+    }
+
+    // Menor valor que cai no balde
+    static long lowerBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        return (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+    }
+
+    // Maior valor que cai no balde
+    static long upperBound(int bucket) {
+        return bucket == BUCKETS - 1 ? Long.MAX_VALUE : lowerBound(bucket + 1) - 1;
+    }
+
+    // Valores negativos contam como 0
+    public void record(long value) {
+        counts.incrementAndGet(bucketOf(value));
+    }
+
+    public long count() {
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            total += counts.get(i);
+        }
+        return total;
+    }
+
+    // Limite superior do balde onde está o percentil p (0 a 100), ou 0 se o
+    // histograma estiver vazio. Com gravações concorrentes o resultado
+    // corresponde a algum estado intermediário, o que basta para métricas.
+    public long valueAtPercentile(double p) {
+        if (p < 0 || p > 100) {
+            throw new IllegalArgumentException("percentile must be between 0 and 100: " + p);
+        }
+        long[] snapshot = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long target = Math.max(1, (long) Math.ceil(p / 100 * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= target) {
+                return upperBound(i);
+            }
+        }
+        return upperBound(BUCKETS - 1);
+    }
+
+    // Limite superior do maior balde não vazio, ou 0 se o histograma estiver vazio
+    public long max() {
+        for (int i = BUCKETS - 1; i >= 0; i--) {
+            if (counts.get(i) != 0) {
+                return upperBound(i);
+            }
+        }
+        return 0;
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.vev;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+// Ranking somente leitura sobre um snapshot mapeado em memória (ver
+// RankingFile). Scores são lidos direto da região mapeada e cada Record só é
+// criado na primeira vez que é pedido.
+public class MappedRanking implements LeaderboardView {
+    private final ByteBuffer buffer;
+    private final Path path;
+    private final int capacity;
+    private final int count;
+    private final int blobStart;
+    private Record[] records;
+
+    MappedRanking(ByteBuffer buffer, Path path) throws IOException {
+        RankingFile.checkHeader(buffer, path);
+        this.buffer = buffer;
+        this.path = path;
+        capacity = buffer.getInt(8);
+        count = buffer.getInt(12);
+        blobStart = RankingFile.HEADER_SIZE + count * RankingFile.SLOT_SIZE;
+    }
+
+    @Override
+    public int capacity() {
+        return capacity;
+    }
+
+    @Override
+    public int numRecords() {
+        return count;
+    }
+
+    // Score na posição i, lido direto do arquivo
+    public int scoreAt(int i) {
+        if (i < 0 || i >= count) {
+            throw new IndexOutOfBoundsException(i);
+        }
+        return buffer.getInt(slot(i));
+    }
+
+    // Instante do score na posição i, lido direto do arquivo
+    public long timestampAt(int i) {
+        if (i < 0 || i >= count) {
+            throw new IndexOutOfBoundsException(i);
+        }
+        return buffer.getLong(slot(i) + RankingFile.SLOT_TIMESTAMP);
+    }
+
+    @Override
+    public Record getScore(int i) {
+        if (i < 0 || i >= count) {
+            return null;
+        }
+        if (records == null) {
+            records = new Record[count];
+        }
+        Record record = records[i];
+        if (record == null) {
+            record = new Record(readName(i), buffer.getInt(slot(i)), buffer.getLong(slot(i) + RankingFile.SLOT_TIMESTAMP));
+            records[i] = record;
+        }
+        return record;
+    }
+
+    @Override
+    public Record bestScore() {
+        return getScore(0);
+    }
+
+    @Override
+    public Record worstScore() {
+        if (count == 0) {
+            throw new ArrayIndexOutOfBoundsException(-1);
+        }
+        return getScore(count - 1);
+    }
+
+    // Cópia mutável do snapshot. Ranking.load confia na ordem decrescente
+    // dos slots, então ela é conferida aqui: um arquivo fora de ordem é
+    // recusado em vez de virar um heap inválido.
+    public Ranking toRanking() {
+        Ranking ranking = new Ranking(capacity);
+        Record[] ordered = new Record[count];
+        for (int i = 0; i < count; i++) {
+            ordered[i] = getScore(i);
+            if (i > 0 && ordered[i].getScore() > ordered[i - 1].getScore()) {
+                throw new IllegalStateException("corrupt ranking snapshot: slot " + i + " out of order in " + path);
+            }
+        }
+        ranking.load(ordered, count);
+        return ranking;
+    }
+
+    private int slot(int i) {
+        return RankingFile.HEADER_SIZE + i * RankingFile.SLOT_SIZE;
+    }
+
+    // O cabeçalho só garante que os slots cabem no arquivo; deslocamento e
+    // tamanho do nome são conferidos aqui, antes de ler
+    private String readName(int i) {
+        int offset = buffer.getInt(slot(i) + RankingFile.SLOT_NAME_OFFSET);
+        int length = buffer.getInt(slot(i) + RankingFile.SLOT_NAME_LENGTH);
+        if (length == -1) {
+            return null;
+        }
+        if (offset < 0 || length < 0 || (long) blobStart + offset + length > buffer.limit()) {
+            throw new IllegalStateException("corrupt ranking snapshot: name of slot " + i + " out of bounds in " + path);
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(blobStart + offset, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
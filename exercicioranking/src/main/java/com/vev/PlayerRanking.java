@@ -0,0 +1,264 @@
+package com.vev;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// Ranking com no máximo um registro por jogador (getName()). Os registros
+// ficam em uma árvore de estatística de ordem (treap com o tamanho de cada
+// subárvore) e um índice nome -> nó dá acesso direto ao registro do jogador,
+// então rankOf e updateScore custam O(log K) sem varrer o ranking.
+public class PlayerRanking implements Leaderboard {
+
+    // Qual score manter quando o mesmo jogador aparece de novo
+    public enum Policy {
+        // o melhor score do jogador
+        BEST,
+        // o score mais recente do jogador, mesmo que menor
+        LATEST
+    }
+
+    private static final class Node {
+        final Record record;
+        final long seq;
+        final int priority;
+        int size = 1;
+        Node left;
+        Node right;
+
+        Node(Record record, long seq, int priority) {
+            this.record = record;
+            this.seq = seq;
+            this.priority = priority;
+        }
+    }
+
+    private final int capacity;
+    private final Policy policy;
+    private final Map<String, Node> index;
+    private Node root;
+    private long nextSeq;
+    private int randomState = 0x2545F491;
+
+    public PlayerRanking(Policy policy) {
+        this(Ranking.DEFAULT_CAPACITY, policy);
+    }
+
+    public PlayerRanking(int capacity, Policy policy) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+        this.policy = policy;
+        index = new HashMap<>(Math.min(capacity, 1 << 16) * 2);
+    }
+
+    // Para um jogador novo vale a regra do Ranking (entra se não for pior que
+    // o último). Para um jogador já presente, o registro é trocado conforme a
+    // política. Retorna true se o registro passou a fazer parte do ranking.
+    @Override
+    public boolean add(Record record) {
+        Node current = index.get(record.getName());
+        if (current != null) {
+            if (policy == Policy.BEST && record.getScore() <= current.record.getScore()) {
+                return false;
+            }
+            replace(current, record);
+            return true;
+        }
+        if (index.size() == capacity) {
+            Node worst = last();
+            if (record.getScore() < worst.record.getScore()) {
+                return false;
+            }
+            root = remove(root, worst);
+            index.remove(worst.record.getName());
+        }
+        insert(record);
+        return true;
+    }
+
+    // Troca o score de um jogador, independentemente da política. Um jogador
+    // que não está no ranking é tratado como um add.
+    public boolean updateScore(String name, int newScore) {
+        Record record = new Record(name, newScore);
+        Node current = index.get(name);
+        if (current == null) {
+            return add(record);
+        }
+        replace(current, record);
+        return true;
+    }
+
+    // Posição do jogador no ranking (0 é o melhor) ou -1 se ele não estiver nele
+    public int rankOf(String name) {
+        Node node = index.get(name);
+        if (node == null) {
+            return -1;
+        }
+        int rank = 0;
+        Node t = root;
+        while (t != node) {
+            if (compare(node, t) < 0) {
+                t = t.left;
+            } else {
+                rank += size(t.left) + 1;
+                t = t.right;
+            }
+        }
+        return rank + size(node.left);
+    }
+
+    // Registro atual do jogador, ou null
+    public Record recordOf(String name) {
+        Node node = index.get(name);
+        return node == null ? null : node.record;
+    }
+
+    private void replace(Node current, Record record) {
+        root = remove(root, current);
+        index.remove(current.record.getName());
+        insert(record);
+    }
+
+    private void insert(Record record) {
+        Node node = new Node(record, nextSeq++, nextPriority());
+        root = insert(root, node);
+        index.put(record.getName(), node);
+    }
+
+    private int nextPriority() {
+        // xorshift: prioridades pseudoaleatórias para manter a treap balanceada
+        int x = randomState;
+        x ^= x << 13;
+        x ^= x >>> 17;
+        x ^= x << 5;
+        randomState = x;
+        return x;
+    }
+
+    // Ordem do ranking: score decrescente e, em empates, ordem de chegada
+    private static int compare(Node a, Node b) {
+        if (a.record.getScore() != b.record.getScore()) {
+            return a.record.getScore() > b.record.getScore() ? -1 : 1;
+        }
+        return Long.compare(a.seq, b.seq);
+    }
+
+    private static int size(Node t) {
+        return t == null ? 0 : t.size;
+    }
+
+    private static void update(Node t) {
+        t.size = 1 + size(t.left) + size(t.right);
+    }
+
+    private static Node insert(Node t, Node node) {
+        if (t == null) {
+            return node;
+        }
+        if (compare(node, t) < 0) {
+            t.left = insert(t.left, node);
+            if (t.left.priority > t.priority) {
+                Node l = t.left;
+                t.left = l.right;
+                l.right = t;
+                update(t);
+                update(l);
+                return l;
+            }
+        } else {
+            t.right = insert(t.right, node);
+            if (t.right.priority > t.priority) {
+                Node r = t.right;
+                t.right = r.left;
+                r.left = t;
+                update(t);
+                update(r);
+                return r;
+            }
+        }
+        update(t);
+        return t;
+    }
+
+    private static Node remove(Node t, Node node) {
+        if (t == node) {
+            return join(t.left, t.right);
+        }
+        if (compare(node, t) < 0) {
+            t.left = remove(t.left, node);
+        } else {
+            t.right = remove(t.right, node);
+        }
+        update(t);
+        return t;
+    }
+
+    // Junta duas subárvores em que todos de a vêm antes de todos de b
+    private static Node join(Node a, Node b) {
+        if (a == null) {
+            return b;
+        }
+        if (b == null) {
+            return a;
+        }
+        if (a.priority > b.priority) {
+            a.right = join(a.right, b);
+            update(a);
+            return a;
+        }
+        b.left = join(a, b.left);
+        update(b);
+        return b;
+    }
+
+    private Node last() {
+        Node t = root;
+        while (t.right != null) {
+            t = t.right;
+        }
+        return t;
+    }
+
+    @Override
+    public int capacity() {
+        return capacity;
+    }
+
+    @Override
+    public int numRecords() {
+        return index.size();
+    }
+
+    @Override
+    public Record getScore(int i) {
+        if (i < 0 || i >= size(root)) {
+            return null;
+        }
+        Node t = root;
+        while (true) {
+            int leftSize = size(t.left);
+            if (i < leftSize) {
+                t = t.left;
+            } else if (i == leftSize) {
+                return t.record;
+            } else {
+                i -= leftSize + 1;
+                t = t.right;
+            }
+        }
+    }
+
+    @Override
+    public Record bestScore() {
+        return getScore(0);
+    }
+
+    @Override
+    public Record worstScore() {
+        if (root == null) {
+            throw new ArrayIndexOutOfBoundsException(-1);
+        }
+        return last().record;
+    }
+}
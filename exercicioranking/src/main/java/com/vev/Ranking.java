@@ -1,67 +1,713 @@
 package com.vev;
 
-public class Ranking {
-    private final int MAXSCORES = 20;
-    private Record[] scores;
+import java.lang.invoke.VarHandle;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.RandomAccess;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.stream.Collector;
+import java.util.stream.Stream;
+
+public class Ranking implements Leaderboard, Iterable<Record> {
+    public static final int DEFAULT_CAPACITY = 20;
+    // Lotes a partir deste tamanho podem ser divididos entre os núcleos
+    public static final int PARALLEL_THRESHOLD = 1 << 16;
+
+    private final int capacity;
+    // Min-heap: heap[0] é sempre o pior registro do ranking
+    private final Record[] heap;
+    // Ordem de chegada de cada registro do heap, usada no desempate
+    private final long[] seq;
+    private long nextSeq;
     private int pos;
 
+    // Visão ordenada (decrescente), reconstruída só quando alguém a consulta
+    private final Record[] sorted;
+    private final long[] sortedSeq;
+    private boolean sortedValid;
+
+    // null quando as métricas estão desligadas
+    private RankingMetrics metrics;
+    // Resumo de todos os scores recebidos, inclusive os rejeitados; null se desligado
+    private ScoreSketch sketch;
+
+    // Seqlock de snapshot(): ímpar enquanto o heap está sendo alterado. Só a
+    // thread que escreve no ranking o incrementa; leitores de outras threads
+    // copiam o heap e conferem se a versão continuou a mesma.
+    private volatile long version;
+    // Último snapshot criado, reaproveitado enquanto a versão não muda
+    private volatile RankingSnapshot snapshot;
+
     public Ranking() {
-        scores = new Record[MAXSCORES];
+        this(DEFAULT_CAPACITY);
+    }
+
+    public Ranking(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+        heap = new Record[capacity];
+        seq = new long[capacity];
+        sorted = new Record[capacity];
+        sortedSeq = new long[capacity];
         pos = 0;
+        sortedValid = true;
     }
 
-    // Insere um registro na lista mantendo a ordenação
-    private void orderedInsert(Record record) {
-        for (int i = 0; i < pos; i++) {
-            if (record.getScore() > scores[i].getScore()) {
-                for (int j = pos; j > i; j--) {
-                    scores[j] = scores[j - 1];
-                }
-                scores[i] = record;
-                pos++;
-                return;
+    // Um registro é pior que outro se tem score menor ou, em caso de empate,
+    // se chegou depois (a ordenação original era estável)
+    private static boolean worse(Record a, long seqA, Record b, long seqB) {
+        if (a.getScore() != b.getScore()) {
+            return a.getScore() < b.getScore();
+        }
+        return seqA > seqB;
+    }
+
+    // Retorna a posição final do registro
+    private int siftUp(int i) {
+        Record record = heap[i];
+        long s = seq[i];
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (!worse(record, s, heap[parent], seq[parent])) {
+                break;
+            }
+            heap[i] = heap[parent];
+            seq[i] = seq[parent];
+            i = parent;
+        }
+        heap[i] = record;
+        seq[i] = s;
+        return i;
+    }
+
+    // Retorna a posição final do registro
+    private static int siftDown(Record[] h, long[] hs, int i, int n) {
+        Record record = h[i];
+        long s = hs[i];
+        int half = n >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            int right = child + 1;
+            if (right < n && worse(h[right], hs[right], h[child], hs[child])) {
+                child = right;
+            }
+            if (!worse(h[child], hs[child], record, s)) {
+                break;
             }
+            h[i] = h[child];
+            hs[i] = hs[child];
+            i = child;
         }
-        scores[pos] = record;
-        pos++;
+        h[i] = record;
+        hs[i] = s;
+        return i;
+    }
+
+    // Nível da posição i no heap (a raiz está no nível 0)
+    private static int level(int i) {
+        return 31 - Integer.numberOfLeadingZeros(i + 1);
+    }
+
+    // Reconstrói a visão ordenada com um heapsort sobre a cópia do heap:
+    // retirar sempre o pior e colocá-lo no fim deixa o array em ordem decrescente
+    private Record[] sortedView() {
+        if (!sortedValid) {
+            System.arraycopy(heap, 0, sorted, 0, pos);
+            System.arraycopy(seq, 0, sortedSeq, 0, pos);
+            for (int end = pos - 1; end > 0; end--) {
+                Record r = sorted[0];
+                long s = sortedSeq[0];
+                sorted[0] = sorted[end];
+                sortedSeq[0] = sortedSeq[end];
+                sorted[end] = r;
+                sortedSeq[end] = s;
+                siftDown(sorted, sortedSeq, 0, end);
+            }
+            sortedValid = true;
+        }
+        return sorted;
     }
 
     // Insere um novo registro na lista, se possível, mantendo a ordenação
     // Retorna true se a inserção foi possível
+    @Override
     public boolean add(Record record) {
-        if (pos < MAXSCORES) {
-            orderedInsert(record);
-            return true;
+        if (sketch != null) {
+            sketch.record(record.getScore());
+        }
+        RankingMetrics m = metrics;
+        if (m == null) {
+            return insert(record) >= 0;
+        }
+        long start = System.nanoTime();
+        boolean evicting = pos == capacity;
+        int levels = insert(record);
+        m.recordAdd(levels, evicting, System.nanoTime() - start);
+        return levels >= 0;
+    }
+
+    // Retorna quantos níveis o registro andou no heap, ou -1 se foi rejeitado
+    private int insert(Record record) {
+        if (pos < capacity) {
+            long v = beginWrite();
+            heap[pos] = record;
+            seq[pos] = nextSeq++;
+            int levels = level(pos) - level(siftUp(pos));
+            pos++;
+            sortedValid = false;
+            version = v + 2;
+            return levels;
+        }
+        // Registro abaixo do pior score é rejeitado sem tocar no heap
+        if (record.getScore() >= heap[0].getScore()) {
+            // substitui o pior score e reposiciona
+            long v = beginWrite();
+            heap[0] = record;
+            seq[0] = nextSeq++;
+            int levels = level(siftDown(heap, seq, 0, pos));
+            sortedValid = false;
+            version = v + 2;
+            return levels;
+        }
+        return -1;
+    }
+
+    // Liga (ou, com null, desliga) o resumo dos scores usado por
+    // estimatedRank e percentile. O resumo só vê os scores recebidos depois
+    // de ligado.
+    public void setScoreSketch(ScoreSketch sketch) {
+        this.sketch = sketch;
+    }
+
+    public ScoreSketch getScoreSketch() {
+        return sketch;
+    }
+
+    // Posição (a partir de 1) que um score teria entre todos os scores
+    // recebidos. É exata enquanto o ranking não encheu e, depois, para scores
+    // a partir do pior do ranking: nenhum score acima do pior jamais foi
+    // removido. Abaixo disso é a estimativa do ScoreSketch; sem ScoreSketch
+    // lança IllegalStateException.
+    public long estimatedRank(int score) {
+        if (pos < capacity || score >= heap[0].getScore()) {
+            return 1 + countAbove(score);
+        }
+        return requireSketch().estimatedRank(score);
+    }
+
+    // Porcentagem dos scores recebidos que não passam de score. É exata
+    // enquanto o ranking não encheu; depois vem do ScoreSketch, e sem
+    // ScoreSketch lança IllegalStateException (o ranking já descartou scores
+    // que não sabe onde estavam).
+    public double percentile(int score) {
+        if (pos < capacity) {
+            return pos == 0 ? 0 : 100.0 * (pos - countAbove(score)) / pos;
+        }
+        return requireSketch().percentile(score);
+    }
+
+    // Registros do ranking com score maior que score. Com a visão ordenada em
+    // dia é uma busca binária; senão, uma passada pelo heap em O(K), sem pagar
+    // o heapsort da visão. Recebe long para que countAbove(lo - 1) funcione
+    // com Integer.MIN_VALUE.
+    private int countAbove(long score) {
+        if (!sortedValid) {
+            int count = 0;
+            for (int i = 0; i < pos; i++) {
+                if (heap[i].getScore() > score) {
+                    count++;
+                }
+            }
+            return count;
+        }
+        Record[] view = sorted;
+        int low = 0;
+        int high = pos;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (view[mid].getScore() > score) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // Registros das posições [from, to), em ordem decrescente. É uma visão
+    // da visão ordenada, sem cópia: custa O(to - from) para percorrer, mais a
+    // reconstrução da visão se houve inserção desde a última consulta. A
+    // visão deixa de valer quando o ranking muda (o acesso seguinte lança
+    // ConcurrentModificationException); para guardar, copie-a ou use snapshot().
+    public List<Record> range(int from, int to) {
+        if (from < 0 || to > pos || from > to) {
+            throw new IndexOutOfBoundsException("range [" + from + ", " + to + ") out of [0, " + pos + ")");
+        }
+        return new RangeView(this, sortedView(), from, to - from, version);
+    }
+
+    // Registros com score entre lo e hi (inclusive), em ordem decrescente.
+    // Os limites vêm de duas buscas binárias, então custa O(log K) mais o
+    // tamanho da página.
+    public List<Record> recordsWithScoreBetween(int lo, int hi) {
+        if (lo > hi) {
+            return Collections.emptyList();
+        }
+        // A página vem da visão ordenada de qualquer forma: com ela em dia,
+        // os dois limites saem por busca binária
+        sortedView();
+        return range(countAbove(hi), countAbove((long) lo - 1));
+    }
+
+    // Percorre os registros em ordem decrescente, sem cópia (ver range)
+    @Override
+    public Iterator<Record> iterator() {
+        return range(0, pos).iterator();
+    }
+
+    // Divide por posição, em metades de tamanho conhecido, para streams
+    // paralelos: StreamSupport.stream(ranking.spliterator(), true)
+    @Override
+    public Spliterator<Record> spliterator() {
+        return range(0, pos).spliterator();
+    }
+
+    // Trecho da visão ordenada; a versão do seqlock serve de contador de
+    // modificações
+    private static final class RangeView extends AbstractList<Record> implements RandomAccess {
+        private final Ranking owner;
+        private final Record[] view;
+        private final int offset;
+        private final int size;
+        private final long expectedVersion;
+
+        RangeView(Ranking owner, Record[] view, int offset, int size, long expectedVersion) {
+            this.owner = owner;
+            this.view = view;
+            this.offset = offset;
+            this.size = size;
+            this.expectedVersion = expectedVersion;
+        }
+
+        @Override
+        public Record get(int index) {
+            Objects.checkIndex(index, size);
+            if (owner.version != expectedVersion) {
+                throw new ConcurrentModificationException("ranking changed since the range was taken");
+            }
+            return view[offset + index];
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+
+    private ScoreSketch requireSketch() {
+        if (sketch == null) {
+            throw new IllegalStateException("ranking is full and has no score sketch");
+        }
+        return sketch;
+    }
+
+    // Versão do seqlock: muda a cada alteração do conteúdo, então duas
+    // leituras iguais (e pares) indicam que nada mudou entre elas
+    long version() {
+        return version;
+    }
+
+    // Marca a versão como ímpar antes de alterar o heap. A escrita volátil não
+    // impede que as escritas seguintes sejam antecipadas, daí a barreira.
+    // Retorna a versão anterior; a escrita termina com version = v + 2.
+    private long beginWrite() {
+        long v = version;
+        version = v + 1;
+        VarHandle.storeStoreFence();
+        return v;
+    }
+
+    // Cópia pelo snapshot: consistente mesmo com outra thread inserindo
+    @Override
+    public Record[] toArray() {
+        return snapshot().toArray();
+    }
+
+    // Cópia imutável e ordenada do ranking, segura para ler em qualquer
+    // thread enquanto outra thread continua inserindo. Não bloqueia quem
+    // escreve: se uma escrita acontecer durante a cópia, a cópia é refeita.
+    // Chamadas sem escrita no meio retornam o mesmo objeto, sem alocar.
+    public RankingSnapshot snapshot() {
+        while (true) {
+            long v = version;
+            RankingSnapshot cached = snapshot;
+            if (cached != null && cached.version() == v) {
+                return cached;
+            }
+            if ((v & 1) != 0) {
+                Thread.onSpinWait();
+                continue;
+            }
+            int n = Math.min(pos, capacity);
+            Record[] h = Arrays.copyOf(heap, n);
+            long[] s = Arrays.copyOf(seq, n);
+            // As leituras da cópia precisam acontecer antes da conferência
+            VarHandle.acquireFence();
+            if (version != v) {
+                continue;
+            }
+            // Heapsort da cópia, como em sortedView
+            for (int end = n - 1; end > 0; end--) {
+                Record r = h[0];
+                long rs = s[0];
+                h[0] = h[end];
+                s[0] = s[end];
+                h[end] = r;
+                s[end] = rs;
+                siftDown(h, s, 0, end);
+            }
+            RankingSnapshot created = new RankingSnapshot(v, capacity, h, s);
+            snapshot = created;
+            return created;
+        }
+    }
+
+    // Liga (ou, com null, desliga) as métricas de add
+    public void setMetrics(RankingMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    public RankingMetrics getMetrics() {
+        return metrics;
+    }
+
+    // Insere um lote de registros. Retorna quantos registros do lote estão no
+    // ranking ao final (um registro aceito e depois superado pelo próprio lote
+    // não conta). O estado final é o mesmo de chamar add() para cada um.
+    public int addAll(Record[] records) {
+        return addAll(records, false);
+    }
+
+    // Com parallel = true, lotes grandes têm a seleção dos melhores scores
+    // dividida entre os núcleos com fork/join
+    public int addAll(Record[] records, boolean parallel) {
+        int floor = pos == capacity ? heap[0].getScore() : Integer.MIN_VALUE;
+        ScoreHeap top;
+        if (parallel && records.length >= PARALLEL_THRESHOLD) {
+            top = ForkJoinPool.commonPool().invoke(new SelectTask(records, 0, records.length, floor, capacity));
         } else {
-            if (record.getScore() >= this.worstScore().getScore()) {
-                // remove o pior score
-                pos--;
-                // insere ordenado
-                orderedInsert(record);
-                return true;
+            top = select(records, 0, records.length, floor, capacity);
+        }
+        for (int i = 0; i < pos; i++) {
+            top.offer(heap[i].getScore());
+        }
+        // O pior score final é o K-ésimo maior entre o ranking atual e o lote.
+        // Registros abaixo dele nunca sobrevivem, e pulá-los não muda quais
+        // empates com ele permanecem (eles só ocupariam vagas a serem removidas).
+        int cut = top.size() == capacity ? top.min() : Integer.MIN_VALUE;
+        long firstSeq = nextSeq;
+        long skipped = 0;
+        for (Record record : records) {
+            if (record.getScore() >= cut) {
+                add(record);
+            } else {
+                skipped++;
+                if (sketch != null) {
+                    sketch.record(record.getScore());
+                }
+            }
+        }
+        RankingMetrics m = metrics;
+        if (m != null && skipped > 0) {
+            m.recordRejected(skipped);
+        }
+        int accepted = 0;
+        for (int i = 0; i < pos; i++) {
+            if (seq[i] >= firstSeq) {
+                accepted++;
+            }
+        }
+        return accepted;
+    }
+
+    public int addAll(Iterable<? extends Record> records) {
+        if (records instanceof Collection) {
+            return addAll(((Collection<? extends Record>) records).toArray(new Record[0]));
+        }
+        List<Record> list = new ArrayList<>();
+        for (Record record : records) {
+            list.add(record);
+        }
+        return addAll(list.toArray(new Record[0]));
+    }
+
+    // Streams paralelos usam a seleção com fork/join
+    public int addAll(Stream<? extends Record> records) {
+        boolean parallel = records.isParallel();
+        return addAll(records.toArray(Record[]::new), parallel);
+    }
+
+    // Seleção parcial dos k maiores scores de records[from, to) que não
+    // estão abaixo de floor
+    private static ScoreHeap select(Record[] records, int from, int to, int floor, int k) {
+        ScoreHeap top = new ScoreHeap(k);
+        for (int i = from; i < to; i++) {
+            int score = records[i].getScore();
+            if (score >= floor) {
+                top.offer(score);
+            }
+        }
+        return top;
+    }
+
+    private static final class SelectTask extends RecursiveTask<ScoreHeap> {
+        private static final long serialVersionUID = 1L;
+        private static final int LEAF_SIZE = 1 << 14;
+
+        private final Record[] records;
+        private final int from;
+        private final int to;
+        private final int floor;
+        private final int k;
+
+        SelectTask(Record[] records, int from, int to, int floor, int k) {
+            this.records = records;
+            this.from = from;
+            this.to = to;
+            this.floor = floor;
+            this.k = k;
+        }
+
+        @Override
+        protected ScoreHeap compute() {
+            if (to - from <= LEAF_SIZE) {
+                return select(records, from, to, floor, k);
+            }
+            int mid = (from + to) >>> 1;
+            SelectTask left = new SelectTask(records, from, mid, floor, k);
+            left.fork();
+            ScoreHeap right = new SelectTask(records, mid, to, floor, k).compute();
+            ScoreHeap merged = left.join();
+            merged.offerAll(right);
+            return merged;
+        }
+    }
+
+    // Min-heap de ints limitado a k elementos: guarda os k maiores oferecidos
+    private static final class ScoreHeap {
+        private final int[] values;
+        private int size;
+
+        ScoreHeap(int k) {
+            values = new int[k];
+        }
+
+        int size() {
+            return size;
+        }
+
+        int min() {
+            return values[0];
+        }
+
+        void offer(int value) {
+            if (size < values.length) {
+                int i = size++;
+                while (i > 0) {
+                    int parent = (i - 1) >>> 1;
+                    if (values[parent] <= value) {
+                        break;
+                    }
+                    values[i] = values[parent];
+                    i = parent;
+                }
+                values[i] = value;
+            } else if (value > values[0]) {
+                int i = 0;
+                int half = size >>> 1;
+                while (i < half) {
+                    int child = 2 * i + 1;
+                    if (child + 1 < size && values[child + 1] < values[child]) {
+                        child++;
+                    }
+                    if (values[child] >= value) {
+                        break;
+                    }
+                    values[i] = values[child];
+                    i = child;
+                }
+                values[i] = value;
+            }
+        }
+
+        void offerAll(ScoreHeap other) {
+            for (int i = 0; i < other.size; i++) {
+                offer(other.values[i]);
+            }
+        }
+    }
+
+    // Junta os registros de outro ranking a este, mantendo os melhores até a
+    // capacidade. É uma intercalação das duas visões ordenadas, O(K), sem
+    // reinserir registro por registro. Em empates os registros deste ranking
+    // ficam à frente dos do outro. Se os dois têm ScoreSketch, o do outro é
+    // somado a este; se o outro não tem, este perde o seu, que não contaria
+    // os scores do outro. Retorna este ranking.
+    public Ranking merge(Ranking other) {
+        if (other == this) {
+            throw new IllegalArgumentException("cannot merge a ranking with itself");
+        }
+        Record[] left = sortedView();
+        Record[] right = other.sortedView();
+        int n = Math.min(capacity, pos + other.pos);
+        Record[] merged = new Record[n];
+        int i = 0;
+        int j = 0;
+        for (int k = 0; k < n; k++) {
+            if (j == other.pos || (i < pos && left[i].getScore() >= right[j].getScore())) {
+                merged[k] = left[i++];
+            } else {
+                merged[k] = right[j++];
+            }
+        }
+        load(merged, n);
+        if (other.sketch == null) {
+            sketch = null;
+        } else if (sketch != null) {
+            sketch.merge(other.sketch);
+        }
+        return this;
+    }
+
+    // Ranking global com os melhores registros de todos os rankings, usando a
+    // maior capacidade entre eles
+    public static Ranking mergeAll(Collection<? extends Ranking> rankings) {
+        int capacity = 1;
+        for (Ranking ranking : rankings) {
+            capacity = Math.max(capacity, ranking.capacity);
+        }
+        return mergeAll(rankings, capacity);
+    }
+
+    // Intercalação de k vias: uma fila de prioridade com o próximo registro de
+    // cada ranking produz os K melhores em O(K log n) para n rankings.
+    // Em empates vale a ordem da coleção.
+    public static Ranking mergeAll(Collection<? extends Ranking> rankings, int capacity) {
+        Ranking result = new Ranking(capacity);
+        Record[][] views = new Record[rankings.size()][];
+        int[] sizes = new int[views.length];
+        int shard = 0;
+        for (Ranking ranking : rankings) {
+            views[shard] = ranking.sortedView();
+            sizes[shard] = ranking.pos;
+            shard++;
+        }
+        // cada cursor é {ranking, posição}
+        PriorityQueue<int[]> cursors = new PriorityQueue<>(Math.max(1, views.length), (a, b) -> {
+            int scoreA = views[a[0]][a[1]].getScore();
+            int scoreB = views[b[0]][b[1]].getScore();
+            return scoreA != scoreB ? Integer.compare(scoreB, scoreA) : Integer.compare(a[0], b[0]);
+        });
+        for (int r = 0; r < views.length; r++) {
+            if (sizes[r] > 0) {
+                cursors.add(new int[] {r, 0});
             }
         }
-        return false;
+        Record[] merged = new Record[capacity];
+        int n = 0;
+        while (n < capacity && !cursors.isEmpty()) {
+            int[] cursor = cursors.poll();
+            merged[n++] = views[cursor[0]][cursor[1]];
+            if (++cursor[1] < sizes[cursor[0]]) {
+                cursors.add(cursor);
+            }
+        }
+        result.load(merged, n);
+        // O resultado só tem ScoreSketch se todos os rankings tiverem
+        ScoreSketch sketch = null;
+        for (Ranking ranking : rankings) {
+            if (ranking.sketch == null) {
+                sketch = null;
+                break;
+            }
+            sketch = sketch == null ? ranking.sketch.copy() : sketch.merge(ranking.sketch);
+        }
+        result.sketch = sketch;
+        return result;
+    }
+
+    // Collector para streams (inclusive paralelos): cada folha do fork/join
+    // monta seu próprio Ranking e as folhas são combinadas com merge
+    public static Collector<Record, ?, Ranking> toTopK(int k) {
+        return Collector.of(() -> new Ranking(k), Ranking::add, Ranking::merge);
+    }
+
+    // Substitui o conteúdo pelos n primeiros registros de um array já em
+    // ordem decrescente. De trás para frente, esse array já é um min-heap.
+    void load(Record[] ordered, int n) {
+        long v = beginWrite();
+        for (int k = 0; k < n; k++) {
+            heap[k] = ordered[n - 1 - k];
+            seq[k] = nextSeq + n - 1 - k;
+            sorted[k] = ordered[k];
+            sortedSeq[k] = nextSeq + k;
+        }
+        for (int k = n; k < pos; k++) {
+            heap[k] = null;
+            sorted[k] = null;
+        }
+        nextSeq += n;
+        pos = n;
+        sortedValid = true;
+        version = v + 2;
     }
 
+    @Override
+    public int capacity() {
+        return capacity;
+    }
+
+    @Override
     public int numRecords() {
         return pos;
     }
 
+    @Override
     public Record getScore(int i) {
         if (i < 0 || i >= pos) {
             return null;
         } else {
-            return scores[i];
+            return sortedView()[i];
         }
     }
 
+    @Override
     public Record worstScore() {
-        return scores[pos - 1];
+        if (pos == 0) {
+            // mesmo comportamento da implementação com array para ranking vazio
+            throw new ArrayIndexOutOfBoundsException(-1);
+        }
+        return heap[0];
     }
 
+    @Override
     public Record bestScore() {
-        return scores[0];
+        if (pos == 0) {
+            return null;
+        }
+        return sortedView()[0];
     }
 
 }
@@ -0,0 +1,49 @@
+package com.vev;
+
+// Uma mudança de posição no ranking entre dois snapshots (ver RankingDiff)
+public final class RankingChange {
+    public enum Type {
+        // record entrou na posição to
+        INSERTED,
+        // record, que estava na posição from, saiu do ranking
+        EVICTED,
+        // o jogador de record saiu da posição from e voltou com um novo
+        // registro (record) na posição to
+        MOVED
+    }
+
+    private final Type type;
+    private final Record record;
+    private final int from;
+    private final int to;
+
+    RankingChange(Type type, Record record, int from, int to) {
+        this.type = type;
+        this.record = record;
+        this.from = from;
+        this.to = to;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public Record getRecord() {
+        return record;
+    }
+
+    // Posição no snapshot anterior, ou -1 para INSERTED
+    public int getFrom() {
+        return from;
+    }
+
+    // Posição no snapshot novo, ou -1 para EVICTED
+    public int getTo() {
+        return to;
+    }
+
+    @Override
+    public String toString() {
+        return type + " " + record + " " + from + " -> " + to;
+    }
+}
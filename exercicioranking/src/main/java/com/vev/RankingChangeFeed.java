@@ -0,0 +1,169 @@
+package com.vev;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+// Publica as mudanças de um ranking como diferenças entre snapshots. Cada
+// tick() compara o snapshot atual com o último publicado, então tudo o que
+// aconteceu entre dois ticks vira uma única RankingDiff (um registro que
+// entrou e saiu no meio não aparece). Se o ranking não mudou, o snapshot é o
+// mesmo objeto e o tick não faz nada.
+//
+// As entradas são identificadas pela ordem de chegada no ranking (seq), não
+// pelo Record: o mesmo Record inserido duas vezes são duas entradas. Só
+// entradas que entram ou saem geram mudanças; as demais apenas deslizam de
+// posição (ver RankingDiff). MOVED é o jogador que trocou o próprio registro
+// por outro. Ranking.load (merge, leitura de arquivo) renumera as entradas,
+// então a diferença seguinte troca o ranking inteiro.
+//
+// A entrega usa um SubmissionPublisher: cada assinante tem um buffer
+// limitado e controla o ritmo com request(n). tick() nunca espera por um
+// assinante: se o buffer de um deles está cheio, a diferença é descartada só
+// para ele e contada em getDropped(). Esse assinante percebe a lacuna porque
+// o fromVersion da diferença seguinte não é o toVersion da última que
+// recebeu, e se ressincroniza pelo snapshot() dela. Quem escreve no ranking
+// também nunca espera, porque o snapshot não bloqueia.
+public class RankingChangeFeed implements Flow.Publisher<RankingDiff>, AutoCloseable {
+    private final Supplier<RankingSnapshot> source;
+    private final SubmissionPublisher<RankingDiff> publisher;
+    private final LongAdder dropped = new LongAdder();
+    private RankingSnapshot last;
+
+    // source é normalmente ranking::snapshot (Ranking ou ConcurrentRanking)
+    public RankingChangeFeed(Supplier<RankingSnapshot> source) {
+        this(source, ForkJoinPool.commonPool(), Flow.defaultBufferSize());
+    }
+
+    public RankingChangeFeed(Supplier<RankingSnapshot> source, Executor executor, int maxBufferCapacity) {
+        this.source = source;
+        publisher = new SubmissionPublisher<>(executor, maxBufferCapacity);
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super RankingDiff> subscriber) {
+        publisher.subscribe(subscriber);
+    }
+
+    // Último snapshot publicado, ou null antes do primeiro tick
+    public synchronized RankingSnapshot current() {
+        return last;
+    }
+
+    // Publica a diferença desde o último tick e a retorna, ou retorna null se
+    // o ranking não mudou
+    public synchronized RankingDiff tick() {
+        RankingSnapshot next = source.get();
+        if (next == last) {
+            return null;
+        }
+        RankingDiff diff = new RankingDiff(last == null ? -1 : last.version(), next, diff(last, next));
+        last = next;
+        // Sem espera nem nova tentativa para assinantes com o buffer cheio
+        publisher.offer(diff, (subscriber, item) -> {
+            dropped.increment();
+            return false;
+        });
+        return diff;
+    }
+
+    // Diferenças descartadas por assinantes com o buffer cheio (uma por
+    // assinante por tick)
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    static List<RankingChange> diff(RankingSnapshot before, RankingSnapshot after) {
+        int oldSize = before == null ? 0 : before.numRecords();
+        int newSize = after.numRecords();
+        // Os dois snapshots estão na mesma ordem total (score, seq) e uma
+        // entrada nunca muda de score nem de seq: uma intercalação acha as que
+        // continuam (mesmo seq dos dois lados), as que saíram e as que entraram
+        int[] evicted = new int[oldSize];
+        int[] inserted = new int[newSize];
+        int evictedCount = 0;
+        int insertedCount = 0;
+        int i = 0;
+        int j = 0;
+        while (i < oldSize || j < newSize) {
+            if (i < oldSize && j < newSize && before.seq(i) == after.seq(j)) {
+                i++;
+                j++;
+            } else if (j == newSize || (i < oldSize && ranksAbove(before, i, after, j))) {
+                evicted[evictedCount++] = i++;
+            } else {
+                inserted[insertedCount++] = j++;
+            }
+        }
+        if (insertedCount == 0 && evictedCount == 0) {
+            return Collections.emptyList();
+        }
+        evicted = Arrays.copyOf(evicted, evictedCount);
+        inserted = Arrays.copyOf(inserted, insertedCount);
+
+        // Um jogador que saiu e entrou com outro registro (mesmo nome, uma
+        // vez de cada lado) vira MOVED
+        Map<String, Integer> evictedByName = uniqueNames(before, evicted);
+        Map<String, Integer> insertedByName = uniqueNames(after, inserted);
+        Map<Integer, Integer> movedFrom = new HashMap<>();
+        Set<Integer> movedOut = new HashSet<>();
+        for (Map.Entry<String, Integer> entry : evictedByName.entrySet()) {
+            int to = insertedByName.getOrDefault(entry.getKey(), -1);
+            if (entry.getValue() >= 0 && to >= 0) {
+                movedFrom.put(to, entry.getValue());
+                movedOut.add(entry.getValue());
+            }
+        }
+
+        List<RankingChange> changes = new ArrayList<>(evicted.length + inserted.length - movedOut.size());
+        for (int k = evicted.length - 1; k >= 0; k--) {
+            if (!movedOut.contains(evicted[k])) {
+                changes.add(new RankingChange(RankingChange.Type.EVICTED, before.getScore(evicted[k]), evicted[k], -1));
+            }
+        }
+        for (int to : inserted) {
+            Integer from = movedFrom.get(to);
+            if (from == null) {
+                changes.add(new RankingChange(RankingChange.Type.INSERTED, after.getScore(to), -1, to));
+            } else {
+                changes.add(new RankingChange(RankingChange.Type.MOVED, after.getScore(to), from, to));
+            }
+        }
+        return Collections.unmodifiableList(changes);
+    }
+
+    // A entrada i de a vem antes da entrada j de b na ordem do ranking
+    private static boolean ranksAbove(RankingSnapshot a, int i, RankingSnapshot b, int j) {
+        int scoreA = a.getScore(i).getScore();
+        int scoreB = b.getScore(j).getScore();
+        return scoreA != scoreB ? scoreA > scoreB : a.seq(i) < b.seq(j);
+    }
+
+    // Nome -> posição dos registros nas posições dadas; -1 para nomes repetidos
+    private static Map<String, Integer> uniqueNames(RankingSnapshot snapshot, int[] positions) {
+        Map<String, Integer> byName = new HashMap<>();
+        for (int position : positions) {
+            String name = snapshot.getScore(position).getName();
+            if (name != null) {
+                byName.merge(name, position, (a, b) -> -1);
+            }
+        }
+        return byName;
+    }
+
+    @Override
+    public void close() {
+        publisher.close();
+    }
+}
@@ -0,0 +1,62 @@
+package com.vev;
+
+import java.util.Arrays;
+import java.util.List;
+
+// Diferença entre dois snapshots de um ranking, publicada pelo
+// RankingChangeFeed. Para ir do snapshot anterior ao novo: remova as posições
+// from de EVICTED e MOVED (da maior para a menor) e depois insira nas
+// posições to de INSERTED e MOVED (da menor para a maior), como faz applyTo.
+// Os registros que não aparecem nas mudanças só deslizam para ocupar as vagas.
+public final class RankingDiff {
+    private final long fromVersion;
+    private final RankingSnapshot snapshot;
+    private final List<RankingChange> changes;
+
+    RankingDiff(long fromVersion, RankingSnapshot snapshot, List<RankingChange> changes) {
+        this.fromVersion = fromVersion;
+        this.snapshot = snapshot;
+        this.changes = changes;
+    }
+
+    // Versão do snapshot a que a diferença se aplica (-1 antes do primeiro)
+    public long fromVersion() {
+        return fromVersion;
+    }
+
+    public long toVersion() {
+        return snapshot.version();
+    }
+
+    // Estado depois das mudanças, para quem precisa ressincronizar
+    public RankingSnapshot snapshot() {
+        return snapshot;
+    }
+
+    // EVICTED da maior posição para a menor, depois INSERTED e MOVED da
+    // menor posição nova para a maior
+    public List<RankingChange> changes() {
+        return changes;
+    }
+
+    // Aplica as mudanças a uma lista com o conteúdo do snapshot anterior
+    // (por exemplo, a cópia local de um cliente)
+    public void applyTo(List<Record> records) {
+        int[] removals = new int[changes.size()];
+        int n = 0;
+        for (RankingChange change : changes) {
+            if (change.getFrom() >= 0) {
+                removals[n++] = change.getFrom();
+            }
+        }
+        Arrays.sort(removals, 0, n);
+        for (int k = n - 1; k >= 0; k--) {
+            records.remove(removals[k]);
+        }
+        for (RankingChange change : changes) {
+            if (change.getTo() >= 0) {
+                records.add(change.getTo(), change.getRecord());
+            }
+        }
+    }
+}
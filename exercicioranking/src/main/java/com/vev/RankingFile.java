@@ -0,0 +1,111 @@
+package com.vev;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+// Formato binário de snapshot de um ranking:
+//
+//   cabeçalho (16 bytes): magic, versão do formato, capacidade, número de registros
+//   slots (20 bytes cada, em ordem decrescente): score, instante do score
+//   (long), deslocamento do nome, tamanho do nome
+//   nomes: bytes UTF-8 concatenados (tamanho -1 indica nome null)
+//
+// Todos os inteiros são big-endian.
+public final class RankingFile {
+    static final int MAGIC = 0x524E4B31; // "RNK1"
+    // Versão 2 acrescentou o instante de cada registro aos slots
+    static final int FORMAT_VERSION = 2;
+    static final int HEADER_SIZE = 16;
+    static final int SLOT_SIZE = 20;
+    // Posição de cada campo dentro do slot
+    static final int SLOT_TIMESTAMP = 4;
+    static final int SLOT_NAME_OFFSET = 12;
+    static final int SLOT_NAME_LENGTH = 16;
+
+    private RankingFile() {
+    }
+
+    // Grava o ranking em um arquivo temporário e o move para o destino, para
+    // que um leitor nunca veja um snapshot pela metade
+    public static void write(LeaderboardView ranking, Path path) throws IOException {
+        // Uma cópia consistente, tirada de uma vez: com um ranking concorrente,
+        // ler registro a registro poderia repetir ou pular registros (e gravar
+        // slots fora de ordem), e ler nome e score em passadas separadas
+        // poderia juntar o nome de um registro com o score de outro
+        Record[] records = ranking.toArray();
+        int count = records.length;
+        byte[][] names = new byte[count][];
+        int blobSize = 0;
+        for (int i = 0; i < count; i++) {
+            String name = records[i].getName();
+            if (name != null) {
+                names[i] = name.getBytes(StandardCharsets.UTF_8);
+                blobSize += names[i].length;
+            }
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + count * SLOT_SIZE + blobSize);
+        buffer.putInt(MAGIC).putInt(FORMAT_VERSION).putInt(ranking.capacity()).putInt(count);
+        int offset = 0;
+        for (int i = 0; i < count; i++) {
+            buffer.putInt(records[i].getScore());
+            buffer.putLong(records[i].getTimestamp());
+            buffer.putInt(offset);
+            buffer.putInt(names[i] == null ? -1 : names[i].length);
+            if (names[i] != null) {
+                offset += names[i].length;
+            }
+        }
+        for (byte[] name : names) {
+            if (name != null) {
+                buffer.put(name);
+            }
+        }
+        buffer.flip();
+
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // Mapeia o snapshot em memória sem copiar nada: O(1) independente do tamanho
+    public static MappedRanking map(Path path) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        return new MappedRanking(buffer, path);
+    }
+
+    // Lê o snapshot para um Ranking que pode continuar recebendo inserções
+    public static Ranking load(Path path) throws IOException {
+        return map(path).toRanking();
+    }
+
+    static void checkHeader(ByteBuffer buffer, Path path) throws IOException {
+        if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IOException("not a ranking snapshot: " + path);
+        }
+        if (buffer.getInt(4) != FORMAT_VERSION) {
+            throw new IOException("unsupported snapshot version " + buffer.getInt(4) + ": " + path);
+        }
+        int count = buffer.getInt(12);
+        if (count < 0 || buffer.getInt(8) < count
+                || (long) HEADER_SIZE + (long) count * SLOT_SIZE > buffer.limit()) {
+            throw new IOException("corrupt ranking snapshot: " + path);
+        }
+    }
+}
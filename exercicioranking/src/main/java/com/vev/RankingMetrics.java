@@ -0,0 +1,110 @@
+package com.vev;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+// Métricas de Ranking.add: contadores de aceitos, rejeitados e removidos
+// (LongAdder, sem disputa entre threads), latência em nanossegundos e
+// distância de sift, em níveis do heap, de cada inserção aceita. Ligadas com
+// Ranking.setMetrics; sem métricas o custo em add é uma leitura de campo.
+// Uma mesma instância pode ser compartilhada por vários rankings.
+public class RankingMetrics implements RankingMetricsMBean {
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder evicted = new LongAdder();
+    private final LogHistogram addLatency = new LogHistogram();
+    private final LogHistogram siftDistance = new LogHistogram();
+
+    // siftLevels < 0 indica registro rejeitado
+    void recordAdd(int siftLevels, boolean evicting, long nanos) {
+        if (siftLevels < 0) {
+            rejected.increment();
+        } else {
+            accepted.increment();
+            if (evicting) {
+                evicted.increment();
+            }
+            siftDistance.record(siftLevels);
+        }
+        addLatency.record(nanos);
+    }
+
+    // Registros rejeitados sem passar por add (os que addAll pula por estarem
+    // abaixo do corte); não entram nos histogramas
+    void recordRejected(long count) {
+        rejected.add(count);
+    }
+
+    @Override
+    public long getAccepted() {
+        return accepted.sum();
+    }
+
+    @Override
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    @Override
+    public long getEvicted() {
+        return evicted.sum();
+    }
+
+    @Override
+    public long getAddLatencyP50Nanos() {
+        return addLatency.valueAtPercentile(50);
+    }
+
+    @Override
+    public long getAddLatencyP99Nanos() {
+        return addLatency.valueAtPercentile(99);
+    }
+
+    @Override
+    public long getAddLatencyMaxNanos() {
+        return addLatency.max();
+    }
+
+    @Override
+    public long getSiftDistanceP99() {
+        return siftDistance.valueAtPercentile(99);
+    }
+
+    @Override
+    public long getSiftDistanceMax() {
+        return siftDistance.max();
+    }
+
+    // Histogramas completos, para percentis além dos expostos no MBean
+    public LogHistogram addLatency() {
+        return addLatency;
+    }
+
+    public LogHistogram siftDistance() {
+        return siftDistance;
+    }
+
+    @Override
+    public void reset() {
+        accepted.reset();
+        rejected.reset();
+        evicted.reset();
+        addLatency.reset();
+        siftDistance.reset();
+    }
+
+    // Registra as métricas no servidor JMX da plataforma como
+    // com.vev:type=Ranking,name=<name>
+    public ObjectName register(String name) {
+        try {
+            ObjectName objectName = ObjectName.getInstance("com.vev:type=Ranking,name=" + ObjectName.quote(name));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+            return objectName;
+        } catch (JMException e) {
+            throw new IllegalArgumentException("could not register ranking metrics as " + name, e);
+        }
+    }
+}
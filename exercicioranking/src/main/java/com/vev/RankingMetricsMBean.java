@@ -0,0 +1,22 @@
+package com.vev;
+
+// Interface JMX das métricas de um Ranking (ver RankingMetrics)
+public interface RankingMetricsMBean {
+    long getAccepted();
+
+    long getRejected();
+
+    long getEvicted();
+
+    long getAddLatencyP50Nanos();
+
+    long getAddLatencyP99Nanos();
+
+    long getAddLatencyMaxNanos();
+
+    long getSiftDistanceP99();
+
+    long getSiftDistanceMax();
+
+    void reset();
+}
@@ -0,0 +1,281 @@
+package com.vev;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+// Muitos rankings (um por fase, região, modo de jogo...) identificados por id,
+// com no máximo maxResident deles em memória. Os demais ficam no diretório, no
+// formato do RankingFile, e são carregados no primeiro acesso.
+//
+// O cache é dividido em stripes pelo hash do id, cada uma com seu lock e seu
+// LinkedHashMap em ordem de acesso: o primeiro da ordem é o menos usado
+// recentemente e sai quando a stripe enche. Acessos a ids de stripes
+// diferentes não disputam lock. A gravação de um ranking que sai (e a leitura
+// de um que volta) acontece com o lock da stripe, então só espera quem usa a
+// mesma stripe. Um ranking que não mudou desde que foi carregado sai sem
+// gravar nada.
+//
+// Os rankings nunca saem do registro: alterações passam por add ou
+// withRanking, com o lock da stripe, e leituras de fora por snapshot.
+public class RankingRegistry implements Closeable {
+    public static final int DEFAULT_STRIPES = 16;
+
+    private static final String SUFFIX = ".rnk";
+
+    private final Path dir;
+    private final int rankingCapacity;
+    private final Stripe[] stripes;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder writes = new LongAdder();
+
+    public RankingRegistry(Path dir, int maxResident) throws IOException {
+        this(dir, maxResident, DEFAULT_STRIPES, Ranking.DEFAULT_CAPACITY);
+    }
+
+    // stripes é arredondado para baixo até uma potência de 2 que não passe de
+    // maxResident; os maxResident lugares são divididos entre as stripes (as
+    // primeiras ficam com um a mais quando a divisão não é exata), então o
+    // total em memória nunca passa de maxResident. rankingCapacity é a
+    // capacidade dos rankings criados pelo registro.
+    public RankingRegistry(Path dir, int maxResident, int stripes, int rankingCapacity) throws IOException {
+        if (maxResident < 1) {
+            throw new IllegalArgumentException("maxResident must be positive: " + maxResident);
+        }
+        if (stripes < 1) {
+            throw new IllegalArgumentException("stripes must be positive: " + stripes);
+        }
+        if (rankingCapacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive: " + rankingCapacity);
+        }
+        Files.createDirectories(dir);
+        this.dir = dir;
+        this.rankingCapacity = rankingCapacity;
+        int count = Integer.highestOneBit(Math.min(stripes, maxResident));
+        this.stripes = new Stripe[count];
+        int perStripe = maxResident / count;
+        int extra = maxResident % count;
+        for (int i = 0; i < count; i++) {
+            this.stripes[i] = new Stripe(i < extra ? perStripe + 1 : perStripe);
+        }
+    }
+
+    // Insere o registro no ranking do id, criando o ranking se preciso
+    public boolean add(String id, Record record) {
+        return withRanking(id, ranking -> ranking.add(record));
+    }
+
+    // Roda a ação com o ranking do id (criado se não existir), com o lock da
+    // stripe. A ação pode alterar o ranking (que passa a ser gravado quando
+    // sair do cache; uma ação que só lê não provoca gravação), mas não deve
+    // guardá-lo: depois que sai do cache ele não é mais o ranking do id.
+    public <T> T withRanking(String id, Function<? super Ranking, T> action) {
+        Stripe stripe = stripeOf(id);
+        synchronized (stripe) {
+            Entry entry = stripe.acquire(id, true);
+            long version = entry.ranking.version();
+            try {
+                return action.apply(entry.ranking);
+            } finally {
+                if (entry.ranking.version() != version) {
+                    entry.dirty = true;
+                }
+            }
+        }
+    }
+
+    // Cópia imutável do ranking do id, que pode ser lida sem lock, ou null se
+    // o id não existe nem em memória nem em disco
+    public RankingSnapshot snapshot(String id) {
+        Stripe stripe = stripeOf(id);
+        synchronized (stripe) {
+            Entry entry = stripe.acquire(id, false);
+            return entry == null ? null : entry.ranking.snapshot();
+        }
+    }
+
+    // true se o id tem ranking em memória ou em disco; não conta como acesso
+    public boolean contains(String id) {
+        Stripe stripe = stripeOf(id);
+        synchronized (stripe) {
+            return stripe.entries.containsKey(id) || Files.exists(pathOf(id));
+        }
+    }
+
+    // Apaga o ranking do id, da memória e do disco
+    public boolean remove(String id) {
+        Stripe stripe = stripeOf(id);
+        synchronized (stripe) {
+            boolean resident = stripe.entries.remove(id) != null;
+            try {
+                return Files.deleteIfExists(pathOf(id)) || resident;
+            } catch (IOException e) {
+                throw new IllegalStateException("could not delete ranking " + id + " in " + dir, e);
+            }
+        }
+    }
+
+    // Quantidade de rankings em memória
+    public int resident() {
+        int total = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                total += stripe.entries.size();
+            }
+        }
+        return total;
+    }
+
+    // Grava em disco os rankings em memória que mudaram, sem tirá-los do cache
+    public void flush() {
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                for (Map.Entry<String, Entry> e : stripe.entries.entrySet()) {
+                    save(e.getKey(), e.getValue());
+                }
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        flush();
+    }
+
+    // Acessos a ids que estavam em memória
+    public long getHits() {
+        return hits.sum();
+    }
+
+    // Acessos a ids que não estavam em memória (carregados ou criados)
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    // Misses atendidos com a leitura do ranking do disco
+    public long getLoads() {
+        return loads.sum();
+    }
+
+    // Rankings tirados da memória para abrir espaço
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    // Rankings gravados em disco (ao sair do cache ou no flush)
+    public long getWrites() {
+        return writes.sum();
+    }
+
+    public double getHitRate() {
+        long h = hits.sum();
+        long total = h + misses.sum();
+        return total == 0 ? 0 : (double) h / total;
+    }
+
+    public void resetStats() {
+        hits.reset();
+        misses.reset();
+        loads.reset();
+        evictions.reset();
+        writes.reset();
+    }
+
+    private Stripe stripeOf(String id) {
+        int h = id.hashCode();
+        h ^= h >>> 16;
+        return stripes[h & (stripes.length - 1)];
+    }
+
+    // Base64 do id em UTF-8, para que qualquer id vire um nome de arquivo válido
+    private Path pathOf(String id) {
+        return dir.resolve(Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(id.getBytes(StandardCharsets.UTF_8)) + SUFFIX);
+    }
+
+    private void save(String id, Entry entry) {
+        if (!entry.dirty) {
+            return;
+        }
+        try {
+            RankingFile.write(entry.ranking, pathOf(id));
+        } catch (IOException e) {
+            throw new IllegalStateException("could not write ranking " + id + " in " + dir, e);
+        }
+        entry.dirty = false;
+        writes.increment();
+    }
+
+    private static final class Entry {
+        final Ranking ranking;
+        // Mudou desde a última gravação (ou nunca foi gravado)
+        boolean dirty;
+
+        Entry(Ranking ranking, boolean dirty) {
+            this.ranking = ranking;
+            this.dirty = dirty;
+        }
+    }
+
+    private final class Stripe {
+        final int maxEntries;
+        final LinkedHashMap<String, Entry> entries;
+
+        Stripe(int maxEntries) {
+            this.maxEntries = maxEntries;
+            entries = new LinkedHashMap<>(16, 0.75f, true);
+        }
+
+        // Entrada do id, carregada do disco ou (se create) criada quando não
+        // está em memória; null se não existe e create é false. Chamado com o
+        // lock da stripe.
+        Entry acquire(String id, boolean create) {
+            Entry entry = entries.get(id);
+            if (entry != null) {
+                hits.increment();
+                return entry;
+            }
+            misses.increment();
+            Path path = pathOf(id);
+            if (Files.exists(path)) {
+                try {
+                    entry = new Entry(RankingFile.load(path), false);
+                } catch (IOException e) {
+                    throw new IllegalStateException("could not read ranking " + id + " in " + dir, e);
+                }
+                loads.increment();
+            } else if (create) {
+                entry = new Entry(new Ranking(rankingCapacity), true);
+            } else {
+                return null;
+            }
+            // Abre espaço antes de inserir: se a gravação falhar, o ranking
+            // que sairia continua no cache
+            if (entries.size() >= maxEntries) {
+                evictEldest();
+            }
+            entries.put(id, entry);
+            return entry;
+        }
+
+        private void evictEldest() {
+            Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+            Map.Entry<String, Entry> eldest = it.next();
+            save(eldest.getKey(), eldest.getValue());
+            it.remove();
+            evictions.increment();
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.vev;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+// Cópia imutável de um Ranking em um instante (ver Ranking.snapshot()). Pode
+// ser lida por qualquer thread sem sincronização; version() identifica o
+// estado do ranking de onde veio.
+public final class RankingSnapshot implements LeaderboardView {
+    private final long version;
+    private final int capacity;
+    // Em ordem decrescente, sem posições vazias
+    private final Record[] records;
+    // Ordem de chegada de cada posição no ranking de origem
+    private final long[] seqs;
+
+    RankingSnapshot(long version, int capacity, Record[] records, long[] seqs) {
+        this.version = version;
+        this.capacity = capacity;
+        this.records = records;
+        this.seqs = seqs;
+    }
+
+    // Muda sempre que o ranking de origem muda; dois snapshots com a mesma
+    // versão têm o mesmo conteúdo
+    public long version() {
+        return version;
+    }
+
+    @Override
+    public int capacity() {
+        return capacity;
+    }
+
+    @Override
+    public int numRecords() {
+        return records.length;
+    }
+
+    @Override
+    public Record getScore(int i) {
+        if (i < 0 || i >= records.length) {
+            return null;
+        }
+        return records[i];
+    }
+
+    @Override
+    public Record bestScore() {
+        return getScore(0);
+    }
+
+    @Override
+    public Record worstScore() {
+        if (records.length == 0) {
+            throw new ArrayIndexOutOfBoundsException(-1);
+        }
+        return records[records.length - 1];
+    }
+
+    // Identifica a entrada da posição i no ranking de origem: o mesmo Record
+    // inserido duas vezes são duas entradas, com seqs diferentes. A ordem dos
+    // registros é score decrescente e, nos empates, seq crescente.
+    long seq(int i) {
+        return seqs[i];
+    }
+
+    @Override
+    public Record[] toArray() {
+        return records.clone();
+    }
+
+    // Registros em ordem decrescente, sem cópia
+    public List<Record> asList() {
+        return Collections.unmodifiableList(Arrays.asList(records));
+    }
+}
@@ -1,12 +1,19 @@
 package com.vev;
 
 public class Record {
-    private String name;
-    private int score;
+    private final String name;
+    private final int score;
+    // Instante do score em milissegundos desde a época
+    private final long timestamp;
 
     public Record(String name, int score) {
+        this(name, score, System.currentTimeMillis());
+    }
+
+    public Record(String name, int score, long timestamp) {
         this.name = name;
         this.score = score;
+        this.timestamp = timestamp;
     }
 
     public String getName() {
@@ -17,6 +24,10 @@ public class Record {
         return score;
     }
 
+    public long getTimestamp() {
+        return timestamp;
+    }
+
     @Override
     public String toString() {
         return "Record [name=" + name + ", score=" + score + "]";
@@ -0,0 +1,149 @@
+package com.vev;
+
+// Resumo de todos os scores vistos, para estimar a posição de quem ficou
+// fora do ranking. É um histograma log-linear (como o LogHistogram) sobre
+// todo o intervalo de int, negativos inclusive: scores de módulo menor que
+// 2^precisionBits têm balde próprio e são exatos; acima disso cada potência
+// de 2 é dividida em 2^precisionBits baldes, com erro relativo de no máximo
+// 2^-precisionBits. A memória é fixa, qualquer que seja o número de scores.
+//
+// As contagens ficam numa árvore de Fenwick sobre os baldes, então gravar e
+// consultar custam O(log B). Como a árvore é linear nas contagens, juntar
+// dois resumos (um por shard, por exemplo) é somar os arrays.
+public class ScoreSketch {
+    public static final int DEFAULT_PRECISION_BITS = 5;
+
+    private final int precisionBits;
+    private final int subBuckets;
+    // Baldes de cada sinal; os negativos vêm antes, em ordem crescente de score
+    private final int bucketsPerSign;
+    // Árvore de Fenwick, indexada a partir de 1
+    private final long[] tree;
+    private long count;
+
+    public ScoreSketch() {
+        this(DEFAULT_PRECISION_BITS);
+    }
+
+    public ScoreSketch(int precisionBits) {
+        if (precisionBits < 1 || precisionBits > 12) {
+            throw new IllegalArgumentException("precision bits must be between 1 and 12: " + precisionBits);
+        }
+        this.precisionBits = precisionBits;
+        subBuckets = 1 << precisionBits;
+        bucketsPerSign = (32 - precisionBits) * subBuckets;
+        tree = new long[2 * bucketsPerSign + 1];
+    }
+
+    public int precisionBits() {
+        return precisionBits;
+    }
+
+    // Quantidade de scores gravados
+    public long count() {
+        return count;
+    }
+
+    public void record(int score) {
+        for (int i = bucketOf(score) + 1; i < tree.length; i += i & -i) {
+            tree[i]++;
+        }
+        count++;
+    }
+
+    // Soma os scores do outro resumo a este
+    public ScoreSketch merge(ScoreSketch other) {
+        if (other.precisionBits != precisionBits) {
+            throw new IllegalArgumentException("cannot merge sketches with precision " + precisionBits
+                    + " and " + other.precisionBits);
+        }
+        long otherCount = other.count;
+        for (int i = 1; i < tree.length; i++) {
+            tree[i] += other.tree[i];
+        }
+        count += otherCount;
+        return this;
+    }
+
+    public ScoreSketch copy() {
+        return new ScoreSketch(precisionBits).merge(this);
+    }
+
+    // Estimativa de quantos scores gravados são maiores que score. Dentro do
+    // balde do score, supõe os valores espalhados por igual.
+    public double countAbove(int score) {
+        int bucket = bucketOf(score);
+        long upTo = prefix(bucket + 1);
+        long inBucket = upTo - prefix(bucket);
+        long low = lowerBound(bucket);
+        long high = upperBound(bucket);
+        return count - upTo + inBucket * (double) (high - score) / (high - low + 1);
+    }
+
+    // Posição estimada (a partir de 1) de quem fez score entre todos os scores gravados
+    public long estimatedRank(int score) {
+        return 1 + Math.round(countAbove(score));
+    }
+
+    // Porcentagem estimada dos scores gravados que não passam de score, ou 0
+    // se nenhum score foi gravado
+    public double percentile(int score) {
+        if (count == 0) {
+            return 0;
+        }
+        return 100 * (count - countAbove(score)) / count;
+    }
+
+    // Balde do score, em ordem crescente de score
+    int bucketOf(int score) {
+        if (score >= 0) {
+            return bucketsPerSign + magnitudeBucket(score);
+        }
+        return bucketsPerSign - 1 - magnitudeBucket(-(long) score - 1);
+    }
+
+    // Menor score do balde
+    long lowerBound(int bucket) {
+        if (bucket >= bucketsPerSign) {
+            return magnitudeLower(bucket - bucketsPerSign);
+        }
+        return -magnitudeUpper(bucketsPerSign - 1 - bucket) - 1;
+    }
+
+    // Maior score do balde
+    long upperBound(int bucket) {
+        if (bucket >= bucketsPerSign) {
+            return magnitudeUpper(bucket - bucketsPerSign);
+        }
+        return -magnitudeLower(bucketsPerSign - 1 - bucket) - 1;
+    }
+
+    private int magnitudeBucket(long value) {
+        if (value < subBuckets) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - precisionBits;
+        return (shift + 1) * subBuckets + (int) ((value >>> shift) & (subBuckets - 1));
+    }
+
+    private long magnitudeLower(int bucket) {
+        if (bucket < subBuckets) {
+            return bucket;
+        }
+        int shift = bucket / subBuckets - 1;
+        return (long) (subBuckets + bucket % subBuckets) << shift;
+    }
+
+    private long magnitudeUpper(int bucket) {
+        return bucket == bucketsPerSign - 1 ? Integer.MAX_VALUE : magnitudeLower(bucket + 1) - 1;
+    }
+
+    // Quantidade de scores nos baldes [0, bucket)
+    private long prefix(int bucket) {
+        long sum = 0;
+        for (int i = bucket; i > 0; i -= i & -i) {
+            sum += tree[i];
+        }
+        return sum;
+    }
+}
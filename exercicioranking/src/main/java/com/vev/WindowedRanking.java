@@ -0,0 +1,111 @@
+package com.vev;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.LongSupplier;
+
+// Ranking de uma janela de tempo móvel (última hora, últimas 24h...). A janela
+// é dividida em fatias de tempo iguais, cada uma com o seu próprio Ranking
+// dos melhores registros daquela fatia. A leitura junta as fatias ainda vivas
+// (sob demanda, com cache até a próxima mudança) e uma fatia inteira expira de
+// uma vez, sem varrer os registros: quando um registro sai da janela, o
+// próximo melhor de outra fatia assume o lugar dele.
+public class WindowedRanking implements Leaderboard {
+    private final int capacity;
+    private final long bucketMillis;
+    private final LongSupplier clock;
+    private final Ranking[] buckets;
+    // Índice (tempo / bucketMillis) da fatia guardada em cada posição do anel
+    private final long[] bucketEpochs;
+
+    private Ranking merged;
+    private long mergedEpoch;
+    private boolean mergedValid;
+
+    public WindowedRanking(int capacity, Duration window, int bucketCount) {
+        this(capacity, window, bucketCount, System::currentTimeMillis);
+    }
+
+    // clock fornece o instante atual em milissegundos
+    public WindowedRanking(int capacity, Duration window, int bucketCount, LongSupplier clock) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+        if (bucketCount < 1 || window.toMillis() < bucketCount) {
+            throw new IllegalArgumentException("invalid window " + window + " for " + bucketCount + " buckets");
+        }
+        this.capacity = capacity;
+        this.clock = clock;
+        bucketMillis = (window.toMillis() + bucketCount - 1) / bucketCount;
+        buckets = new Ranking[bucketCount];
+        bucketEpochs = new long[bucketCount];
+    }
+
+    // O registro entra na fatia do seu timestamp. Retorna true se ele ficou
+    // entre os melhores da fatia, ou seja, se ainda pode aparecer no ranking
+    // enquanto estiver dentro da janela. Registros fora da janela (antigos
+    // demais ou no futuro) são rejeitados.
+    @Override
+    public boolean add(Record record) {
+        long current = Math.floorDiv(clock.getAsLong(), bucketMillis);
+        long epoch = Math.floorDiv(record.getTimestamp(), bucketMillis);
+        if (epoch > current || epoch <= current - buckets.length) {
+            return false;
+        }
+        int slot = (int) Math.floorMod(epoch, (long) buckets.length);
+        if (buckets[slot] == null || bucketEpochs[slot] != epoch) {
+            // a fatia anterior desta posição já expirou: descarta inteira
+            buckets[slot] = new Ranking(capacity);
+            bucketEpochs[slot] = epoch;
+        }
+        boolean added = buckets[slot].add(record);
+        if (added) {
+            mergedValid = false;
+        }
+        return added;
+    }
+
+    private Ranking view() {
+        long current = Math.floorDiv(clock.getAsLong(), bucketMillis);
+        if (!mergedValid || mergedEpoch != current) {
+            // das fatias mais antigas para as mais novas: em empates, quem chegou antes fica à frente
+            List<Ranking> live = new ArrayList<>(buckets.length);
+            for (long epoch = current - buckets.length + 1; epoch <= current; epoch++) {
+                int slot = (int) Math.floorMod(epoch, (long) buckets.length);
+                if (buckets[slot] != null && bucketEpochs[slot] == epoch) {
+                    live.add(buckets[slot]);
+                }
+            }
+            merged = Ranking.mergeAll(live, capacity);
+            mergedEpoch = current;
+            mergedValid = true;
+        }
+        return merged;
+    }
+
+    @Override
+    public int capacity() {
+        return capacity;
+    }
+
+    @Override
+    public int numRecords() {
+        return view().numRecords();
+    }
+
+    @Override
+    public Record getScore(int i) {
+        return view().getScore(i);
+    }
+
+    @Override
+    public Record bestScore() {
+        return view().bestScore();
+    }
+
+    @Override
+    public Record worstScore() {
+        return view().worstScore();
+    }
+}
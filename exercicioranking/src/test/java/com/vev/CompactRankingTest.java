@@ -0,0 +1,99 @@
+package com.vev;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CompactRankingTest {
+
+    private CompactRanking ranking;
+
+    @BeforeEach
+    void setUp() {
+        ranking = new CompactRanking();
+    }
+
+    @Test
+    void testAddPrimitive() {
+        assertTrue(ranking.add("A", 100));
+        assertTrue(ranking.add("B", 300));
+        assertTrue(ranking.add("C", 200));
+
+        assertEquals(3, ranking.numRecords());
+        assertEquals("B", ranking.nameAt(0));
+        assertEquals(300, ranking.scoreAt(0));
+        assertEquals("C", ranking.nameAt(1));
+        assertEquals("A", ranking.nameAt(2));
+    }
+
+    @Test
+    void testGetScoreBuildsRecord() {
+        ranking.add(new Record("A", 100));
+        Record record = ranking.getScore(0);
+        assertEquals("A", record.getName());
+        assertEquals(100, record.getScore());
+        assertNull(ranking.getScore(1));
+        assertNull(ranking.getScore(-1));
+    }
+
+    @Test
+    void testEmptyRanking() {
+        assertEquals(0, ranking.numRecords());
+        assertNull(ranking.bestScore());
+        assertThrows(ArrayIndexOutOfBoundsException.class, () -> ranking.worstScore());
+        assertThrows(IndexOutOfBoundsException.class, () -> ranking.scoreAt(0));
+        assertThrows(IndexOutOfBoundsException.class, () -> ranking.nameAt(0));
+    }
+
+    @Test
+    void testRejectsBelowWorstWhenFull() {
+        for (int i = 1; i <= 20; i++) {
+            ranking.add("Player" + i, i * 10);
+        }
+        assertFalse(ranking.add("Bad", 5));
+        assertTrue(ranking.add("Equal", 10));
+        assertEquals("Equal", ranking.worstScore().getName());
+        assertTrue(ranking.add("Good", 250));
+        assertEquals(250, ranking.bestScore().getScore());
+        assertEquals(20, ranking.worstScore().getScore());
+    }
+
+    // Deve produzir exatamente a mesma ordem do Ranking baseado em objetos
+    @Test
+    void testMatchesRanking() {
+        Ranking reference = new Ranking(500);
+        CompactRanking compact = new CompactRanking(500);
+        Random random = new Random(3);
+
+        for (int n = 0; n < 20000; n++) {
+            String name = "P" + n;
+            int score = random.nextInt(3000) - 1000;
+            assertEquals(reference.add(new Record(name, score)), compact.add(name, score));
+        }
+
+        assertEquals(reference.numRecords(), compact.numRecords());
+        for (int i = 0; i < reference.numRecords(); i++) {
+            assertEquals(reference.getScore(i).getName(), compact.nameAt(i), "posição " + i);
+            assertEquals(reference.getScore(i).getScore(), compact.scoreAt(i), "posição " + i);
+        }
+        assertEquals(reference.worstScore().getName(), compact.worstScore().getName());
+    }
+
+    // O instante do registro acompanha o score pelo heap e pela visão ordenada
+    @Test
+    void testKeepsTimestamps() {
+        CompactRanking small = new CompactRanking(3);
+        for (int i = 0; i < 10; i++) {
+            small.add(new Record("P" + i, i % 7, 1000 + i));
+        }
+        for (int i = 0; i < small.numRecords(); i++) {
+            Record record = small.getScore(i);
+            assertEquals(1000 + Integer.parseInt(record.getName().substring(1)), record.getTimestamp());
+            assertEquals(record.getTimestamp(), small.timestampAt(i));
+        }
+        assertEquals(1000 + Integer.parseInt(small.worstScore().getName().substring(1)),
+                small.worstScore().getTimestamp());
+    }
+}
@@ -0,0 +1,148 @@
+package com.vev;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConcurrentRankingTest {
+
+    private static final int THREADS = 8;
+    private static final int ADDS_PER_THREAD = 50_000;
+
+    private ConcurrentRanking ranking;
+
+    @BeforeEach
+    void setUp() {
+        ranking = new ConcurrentRanking();
+    }
+
+    // Mesma semântica do Ranking em uso sequencial
+    @Test
+    void testSequentialBehaviourMatchesRanking() {
+        Ranking reference = new Ranking();
+        Random random = new Random(7);
+        for (int i = 0; i < 500; i++) {
+            Record record = new Record("P" + i, random.nextInt(100));
+            assertEquals(reference.add(record), ranking.add(record));
+        }
+        assertEquals(reference.numRecords(), ranking.numRecords());
+        for (int i = 0; i < reference.numRecords(); i++) {
+            assertSame(reference.getScore(i), ranking.getScore(i));
+        }
+        assertSame(reference.bestScore(), ranking.bestScore());
+        assertSame(reference.worstScore(), ranking.worstScore());
+    }
+
+    @Test
+    void testEmptyRanking() {
+        assertEquals(0, ranking.numRecords());
+        assertNull(ranking.getScore(0));
+        assertNull(ranking.bestScore());
+        assertThrows(ArrayIndexOutOfBoundsException.class, () -> ranking.worstScore());
+    }
+
+    @Test
+    void testRejectsBelowFloorWhenFull() {
+        for (int i = 1; i <= 20; i++) {
+            ranking.add(new Record("Player" + i, i * 10));
+        }
+        assertFalse(ranking.add(new Record("Bad", 5)));
+        assertTrue(ranking.add(new Record("Equal", 10)));
+        assertTrue(ranking.add(new Record("Good", 500)));
+        assertEquals(20, ranking.worstScore().getScore());
+    }
+
+    // Teste de estresse: várias threads inserindo ao mesmo tempo. O resultado
+    // precisa ser o mesmo de alguma execução sequencial das inserções.
+    @Test
+    void testConcurrentAddsStayLinearizable() throws Exception {
+        List<List<Record>> rejectedByThread = new ArrayList<>();
+        List<Map<Record, Boolean>> acceptedByThread = new ArrayList<>();
+        List<Integer> allScores = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+
+        for (int t = 0; t < THREADS; t++) {
+            List<Record> rejected = new ArrayList<>();
+            Map<Record, Boolean> accepted = new IdentityHashMap<>();
+            rejectedByThread.add(rejected);
+            acceptedByThread.add(accepted);
+            int seed = t;
+            threads.add(new Thread(() -> {
+                Random random = new Random(seed);
+                List<Integer> scores = new ArrayList<>();
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < ADDS_PER_THREAD; i++) {
+                    // scores crescentes com ruído forçam substituições até o fim
+                    int score = i + random.nextInt(ADDS_PER_THREAD);
+                    Record record = new Record("T" + seed + "-" + i, score);
+                    scores.add(score);
+                    if (ranking.add(record)) {
+                        accepted.put(record, Boolean.TRUE);
+                    } else {
+                        rejected.add(record);
+                    }
+                }
+                allScores.addAll(scores);
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        // O ranking final contém exatamente os maiores scores inseridos
+        List<Integer> expected = new ArrayList<>(allScores);
+        expected.sort(Collections.reverseOrder());
+        assertEquals(20, ranking.numRecords());
+        for (int i = 0; i < 20; i++) {
+            assertEquals(expected.get(i).intValue(), ranking.getScore(i).getScore(), "posição " + i);
+        }
+
+        int worst = ranking.worstScore().getScore();
+        for (int i = 0; i < 20; i++) {
+            Record record = ranking.getScore(i);
+            boolean acceptedByAnyThread = false;
+            for (Map<Record, Boolean> accepted : acceptedByThread) {
+                acceptedByAnyThread |= accepted.containsKey(record);
+            }
+            assertTrue(acceptedByAnyThread, "registro no ranking não foi aceito: " + record);
+        }
+        // O piso só sobe: quem foi rejeitado estava abaixo do pior score final
+        for (List<Record> rejected : rejectedByThread) {
+            for (Record record : rejected) {
+                assertTrue(record.getScore() < worst, "rejeição indevida: " + record);
+            }
+        }
+        // Quem foi aceito e saiu do ranking não pode superar o pior score final
+        for (Map<Record, Boolean> accepted : acceptedByThread) {
+            for (Record record : accepted.keySet()) {
+                assertTrue(record.getScore() <= worst || contains(record), "remoção indevida: " + record);
+            }
+        }
+    }
+
+    private boolean contains(Record record) {
+        for (int i = 0; i < ranking.numRecords(); i++) {
+            if (ranking.getScore(i) == record) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,33 @@
+package com.vev;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Random;
+
+// Processo auxiliar do DurableRankingTest: insere registros sem parar e
+// avisa pela saída padrão cada vez que um lote foi gravado em disco, até
+// ser morto pelo teste
+public class DurableRankingCrashWriter {
+
+    static final int CAPACITY = 100;
+    static final int SYNC_EVERY = 1000;
+
+    static Record record(Random random, int i) {
+        return new Record("P" + i, random.nextInt(1_000_000));
+    }
+
+    public static void main(String[] args) throws Exception {
+        Path dir = Paths.get(args[0]);
+        // limite de checkpoint pequeno para que o teste também passe por rotações do log
+        DurableRanking ranking = DurableRanking.open(dir, CAPACITY, 4096, 5, 256 * 1024);
+        Random random = new Random(99);
+        for (int i = 0; ; i++) {
+            ranking.add(record(random, i));
+            if ((i + 1) % SYNC_EVERY == 0) {
+                ranking.flush();
+                System.out.println("synced " + (i + 1));
+                System.out.flush();
+            }
+        }
+    }
+}
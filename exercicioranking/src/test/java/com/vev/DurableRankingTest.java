@@ -0,0 +1,292 @@
+package com.vev;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.reflect.Field;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DurableRankingTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testReopenRestoresState() throws IOException {
+        Ranking reference = new Ranking(50);
+        Random random = new Random(21);
+        try (DurableRanking ranking = DurableRanking.open(dir, 50)) {
+            for (int i = 0; i < 5000; i++) {
+                Record record = new Record("P" + i, random.nextInt(1000));
+                assertEquals(reference.add(record), ranking.add(record));
+            }
+        }
+        try (DurableRanking ranking = DurableRanking.open(dir, 50)) {
+            assertSameContents(reference, ranking);
+        }
+    }
+
+    @Test
+    void testCheckpointRotatesLog() throws IOException {
+        Ranking reference = new Ranking(10);
+        try (DurableRanking ranking = DurableRanking.open(dir, 10)) {
+            for (int i = 0; i < 100; i++) {
+                reference.add(new Record("A" + i, i));
+                ranking.add(new Record("A" + i, i));
+            }
+            ranking.checkpoint();
+            for (int i = 0; i < 100; i++) {
+                reference.add(new Record("B" + i, i * 2));
+                ranking.add(new Record("B" + i, i * 2));
+            }
+        }
+        assertTrue(Files.exists(dir.resolve("snapshot-1.bin")));
+        assertFalse(Files.exists(dir.resolve("wal-0.log")));
+
+        try (DurableRanking ranking = DurableRanking.open(dir, 10)) {
+            assertSameContents(reference, ranking);
+            // só o log posterior ao snapshot é repetido (inserções + remoções)
+            assertTrue(ranking.recoveredEntries() < 200);
+        }
+    }
+
+    @Test
+    void testBackgroundCheckpoint() throws Exception {
+        Ranking reference = new Ranking(20);
+        try (DurableRanking ranking = DurableRanking.open(dir, 20, 512, 5, 4096)) {
+            // scores crescentes: toda inserção é aceita e o log cresce rápido
+            for (int i = 0; i < 20_000; i++) {
+                Record record = new Record("P" + i, i);
+                reference.add(record);
+                ranking.add(record);
+            }
+        }
+        try (Stream<Path> files = Files.list(dir)) {
+            assertTrue(files.anyMatch(f -> f.getFileName().toString().startsWith("snapshot-")));
+        }
+        try (DurableRanking ranking = DurableRanking.open(dir, 20)) {
+            assertSameContents(reference, ranking);
+        }
+    }
+
+    @Test
+    void testTornTailIsDiscarded() throws IOException {
+        try (DurableRanking ranking = DurableRanking.open(dir, 10)) {
+            ranking.add(new Record("A", 10));
+            ranking.add(new Record("B", 20));
+        }
+        // simula uma entrada gravada pela metade
+        Files.write(dir.resolve("wal-0.log"), new byte[] {DurableRanking.INSERT, 0, 0}, StandardOpenOption.APPEND);
+
+        try (DurableRanking ranking = DurableRanking.open(dir, 10)) {
+            assertEquals(2, ranking.numRecords());
+            assertEquals("B", ranking.bestScore().getName());
+            ranking.add(new Record("C", 30));
+        }
+        try (DurableRanking ranking = DurableRanking.open(dir, 10)) {
+            assertEquals(3, ranking.numRecords());
+            assertEquals("C", ranking.bestScore().getName());
+        }
+    }
+
+    // Log de vários pedaços de leitura, com entradas cortadas entre eles, uma
+    // entrada maior que um pedaço e o fim gravado pela metade
+    @Test
+    void testReplaysLogLargerThanChunk() throws IOException {
+        String longName = "L".repeat(DurableRanking.REPLAY_CHUNK + 100);
+        try (DurableRanking ranking = DurableRanking.open(dir, 100)) {
+            for (int i = 0; i < 10_000; i++) {
+                ranking.add(new Record("P" + i, i, 1_000L + i));
+            }
+            ranking.add(new Record(longName, 20_000));
+            ranking.add(new Record("Last", 30_000));
+        }
+        Path log = dir.resolve("wal-0.log");
+        assertTrue(Files.size(log) > 4L * DurableRanking.REPLAY_CHUNK);
+        Files.write(log, new byte[] {DurableRanking.INSERT, 0, 0}, StandardOpenOption.APPEND);
+
+        try (DurableRanking ranking = DurableRanking.open(dir, 100)) {
+            assertEquals(100, ranking.numRecords());
+            assertEquals("Last", ranking.getScore(0).getName());
+            assertEquals(longName, ranking.getScore(1).getName());
+            assertEquals(9_999, ranking.getScore(2).getScore());
+            assertEquals(1_000L + 9_999, ranking.getScore(2).getTimestamp());
+        }
+        try (DurableRanking ranking = DurableRanking.open(dir, 100)) {
+            assertEquals("Last", ranking.bestScore().getName());
+        }
+    }
+
+    // Uma entrada com o tamanho certo mas bytes trocados é descartada pelo CRC
+    @Test
+    void testCorruptEntryIsDiscarded() throws IOException {
+        try (DurableRanking ranking = DurableRanking.open(dir, 10)) {
+            ranking.add(new Record("A", 10));
+            ranking.add(new Record("Bob", 20));
+        }
+        Path log = dir.resolve("wal-0.log");
+        byte[] bytes = Files.readAllBytes(log);
+        // primeiro byte do nome da última entrada ("Bob" + CRC no fim)
+        bytes[bytes.length - DurableRanking.CRC_SIZE - 3] = 'X';
+        Files.write(log, bytes);
+
+        try (DurableRanking ranking = DurableRanking.open(dir, 10)) {
+            assertEquals(1, ranking.numRecords());
+            assertEquals("A", ranking.bestScore().getName());
+            assertEquals(1, ranking.recoveredEntries());
+        }
+    }
+
+    @Test
+    void testRejectsOtherFiles() throws IOException {
+        Files.write(dir.resolve("wal-0.log"), new byte[] {1, 2, 3, 4, 5, 6, 7, 8, 9});
+        assertThrows(IOException.class, () -> DurableRanking.open(dir, 10));
+    }
+
+    // Depois de uma falha de gravação não se sabe o que chegou ao disco: o
+    // ranking passa a recusar inserções em vez de gravar um log corrompido
+    @Test
+    void testWriteFailureIsSticky() throws Exception {
+        DurableRanking ranking = DurableRanking.open(dir, 10, 1 << 20, 60_000, DurableRanking.DEFAULT_CHECKPOINT_BYTES);
+        ranking.add(new Record("A", 10));
+        ranking.flush();
+        ranking.add(new Record("B", 20));
+        Field wal = DurableRanking.class.getDeclaredField("wal");
+        wal.setAccessible(true);
+        ((FileChannel) wal.get(ranking)).close();
+        assertThrows(IOException.class, ranking::flush);
+        assertThrows(IllegalStateException.class, () -> ranking.add(new Record("C", 30)));
+        assertThrows(IOException.class, ranking::flush);
+        assertThrows(IOException.class, ranking::close);
+
+        try (DurableRanking reopened = DurableRanking.open(dir, 10)) {
+            assertEquals(1, reopened.numRecords());
+            assertEquals("A", reopened.bestScore().getName());
+        }
+    }
+
+    // Inserções de várias threads enquanto lotes são gravados e o log gira:
+    // nada aceito se perde e nada é repetido na recuperação
+    @Test
+    void testConcurrentAddsDuringFlushAndCheckpoint() throws Exception {
+        int threads = 4;
+        int perThread = 5000;
+        try (DurableRanking ranking = DurableRanking.open(dir, threads * perThread, 1024, 1, 32 * 1024)) {
+            Thread[] writers = new Thread[threads];
+            for (int t = 0; t < threads; t++) {
+                int id = t;
+                writers[t] = new Thread(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        assertTrue(ranking.add(new Record("T" + id + "-" + i, i)));
+                    }
+                });
+                writers[t].start();
+            }
+            for (Thread writer : writers) {
+                writer.join();
+            }
+        }
+        try (DurableRanking ranking = DurableRanking.open(dir, threads * perThread)) {
+            assertEquals(threads * perThread, ranking.numRecords());
+            Set<String> names = new HashSet<>();
+            for (int i = 0; i < ranking.numRecords(); i++) {
+                names.add(ranking.getScore(i).getName());
+            }
+            assertEquals(threads * perThread, names.size());
+        }
+    }
+
+    @Test
+    void testClosedRankingRejectsAdds() throws IOException {
+        DurableRanking ranking = DurableRanking.open(dir, 10);
+        ranking.close();
+        assertThrows(IllegalStateException.class, () -> ranking.add(new Record("A", 1)));
+    }
+
+    // Mata um processo no meio das inserções e mede a recuperação: tudo que
+    // foi confirmado como gravado precisa estar presente
+    @Test
+    void testRecoveryAfterProcessKill() throws Exception {
+        String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        Process process = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                DurableRankingCrashWriter.class.getName(), dir.toString())
+                .redirectErrorStream(true)
+                .start();
+        int synced = 0;
+        try (BufferedReader out = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+            String line;
+            while (synced < 50_000 && (line = out.readLine()) != null) {
+                if (line.startsWith("synced ")) {
+                    synced = Integer.parseInt(line.substring(7));
+                }
+            }
+        } finally {
+            process.destroyForcibly();
+            process.waitFor();
+        }
+        assertTrue(synced >= 50_000, "o processo auxiliar terminou antes do esperado");
+
+        try (DurableRanking recovered = DurableRanking.open(dir, DurableRankingCrashWriter.CAPACITY)) {
+            // O estado recuperado corresponde a algum prefixo das inserções
+            // que inclui todas as confirmadas
+            Ranking reference = new Ranking(DurableRankingCrashWriter.CAPACITY);
+            Random random = new Random(99);
+            boolean matched = false;
+            for (int i = 0; i < synced + 1_000_000 && !matched; i++) {
+                reference.add(DurableRankingCrashWriter.record(random, i));
+                if (i + 1 >= synced) {
+                    matched = sameContents(reference, recovered);
+                }
+            }
+            assertTrue(matched, "estado recuperado não corresponde às inserções confirmadas");
+        }
+    }
+
+    private static boolean sameContents(Leaderboard expected, Leaderboard actual) {
+        if (expected.numRecords() != actual.numRecords()) {
+            return false;
+        }
+        for (int i = 0; i < expected.numRecords(); i++) {
+            Record a = expected.getScore(i);
+            Record b = actual.getScore(i);
+            if (a.getScore() != b.getScore() || !a.getName().equals(b.getName())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void assertSameContents(Leaderboard expected, Leaderboard actual) {
+        assertEquals(expected.numRecords(), actual.numRecords());
+        for (int i = 0; i < expected.numRecords(); i++) {
+            assertEquals(expected.getScore(i).getName(), actual.getScore(i).getName(), "posição " + i);
+            assertEquals(expected.getScore(i).getScore(), actual.getScore(i).getScore(), "posição " + i);
+        }
+    }
+
+    // O instante de cada registro sobrevive tanto ao log quanto ao snapshot
+    @Test
+    void testTimestampsSurviveRecovery() throws IOException {
+        try (DurableRanking ranking = DurableRanking.open(dir, 10)) {
+            ranking.add(new Record("A", 10, 42));
+            ranking.checkpoint();
+            ranking.add(new Record("B", 20, 43));
+        }
+        try (DurableRanking ranking = DurableRanking.open(dir, 10)) {
+            assertEquals(43, ranking.getScore(0).getTimestamp());
+            assertEquals(42, ranking.getScore(1).getTimestamp());
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.vev;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PlayerRankingTest {
+
+    private PlayerRanking best;
+    private PlayerRanking latest;
+
+    @BeforeEach
+    void setUp() {
+        best = new PlayerRanking(PlayerRanking.Policy.BEST);
+        latest = new PlayerRanking(PlayerRanking.Policy.LATEST);
+    }
+
+    @Test
+    void testSamePlayerDoesNotFillRanking() {
+        for (int i = 1; i <= 30; i++) {
+            best.add(new Record("Alice", i));
+        }
+        assertEquals(1, best.numRecords());
+        assertEquals(30, best.bestScore().getScore());
+    }
+
+    @Test
+    void testBestPolicyKeepsHighest() {
+        assertTrue(best.add(new Record("Alice", 100)));
+        assertFalse(best.add(new Record("Alice", 50)));
+        assertFalse(best.add(new Record("Alice", 100)));
+        assertTrue(best.add(new Record("Alice", 150)));
+        assertEquals(150, best.recordOf("Alice").getScore());
+    }
+
+    @Test
+    void testLatestPolicyKeepsMostRecent() {
+        assertTrue(latest.add(new Record("Alice", 100)));
+        assertTrue(latest.add(new Record("Alice", 50)));
+        assertEquals(50, latest.recordOf("Alice").getScore());
+        assertEquals(1, latest.numRecords());
+    }
+
+    @Test
+    void testRankOf() {
+        best.add(new Record("A", 100));
+        best.add(new Record("B", 300));
+        best.add(new Record("C", 200));
+        assertEquals(0, best.rankOf("B"));
+        assertEquals(1, best.rankOf("C"));
+        assertEquals(2, best.rankOf("A"));
+        assertEquals(-1, best.rankOf("Nobody"));
+    }
+
+    @Test
+    void testUpdateScoreMovesPlayer() {
+        best.add(new Record("A", 100));
+        best.add(new Record("B", 300));
+        best.add(new Record("C", 200));
+
+        // updateScore ignora a política: pode baixar o score
+        assertTrue(best.updateScore("B", 50));
+        assertEquals(2, best.rankOf("B"));
+        assertEquals("C", best.bestScore().getName());
+        assertEquals("B", best.worstScore().getName());
+
+        assertTrue(best.updateScore("D", 400));
+        assertEquals(0, best.rankOf("D"));
+        assertEquals(4, best.numRecords());
+    }
+
+    @Test
+    void testEvictedPlayerLeavesIndex() {
+        PlayerRanking top2 = new PlayerRanking(2, PlayerRanking.Policy.BEST);
+        top2.add(new Record("A", 10));
+        top2.add(new Record("B", 20));
+        assertFalse(top2.add(new Record("C", 5)));
+        assertTrue(top2.add(new Record("D", 30)));
+
+        assertEquals(-1, top2.rankOf("A"));
+        assertNull(top2.recordOf("A"));
+        assertEquals(0, top2.rankOf("D"));
+        assertEquals(1, top2.rankOf("B"));
+        // A pode voltar como jogador novo
+        assertTrue(top2.add(new Record("A", 25)));
+        assertEquals(-1, top2.rankOf("B"));
+    }
+
+    @Test
+    void testEmptyRanking() {
+        assertEquals(0, best.numRecords());
+        assertNull(best.getScore(0));
+        assertNull(best.bestScore());
+        assertThrows(ArrayIndexOutOfBoundsException.class, () -> best.worstScore());
+    }
+
+    // Compara ordem e posições com uma lista ordenada mantida por força bruta
+    @Test
+    void testMatchesBruteForce() {
+        int capacity = 200;
+        PlayerRanking ranking = new PlayerRanking(capacity, PlayerRanking.Policy.LATEST);
+        List<Record> reference = new ArrayList<>();
+        Map<String, Record> byName = new HashMap<>();
+        Random random = new Random(8);
+
+        for (int n = 0; n < 20_000; n++) {
+            Record record = new Record("P" + random.nextInt(400), random.nextInt(1000));
+            Record old = byName.get(record.getName());
+            boolean expected;
+            if (old != null) {
+                reference.remove(old);
+                expected = true;
+            } else if (reference.size() < capacity) {
+                expected = true;
+            } else if (record.getScore() >= reference.get(reference.size() - 1).getScore()) {
+                byName.remove(reference.remove(reference.size() - 1).getName());
+                expected = true;
+            } else {
+                expected = false;
+            }
+            if (expected) {
+                int i = 0;
+                while (i < reference.size() && reference.get(i).getScore() >= record.getScore()) {
+                    i++;
+                }
+                reference.add(i, record);
+                byName.put(record.getName(), record);
+            }
+            assertEquals(expected, ranking.add(record));
+
+            if (n % 500 == 0) {
+                for (int i = 0; i < reference.size(); i++) {
+                    assertSame(reference.get(i), ranking.getScore(i));
+                    assertEquals(i, ranking.rankOf(reference.get(i).getName()));
+                }
+            }
+        }
+        assertEquals(reference.size(), ranking.numRecords());
+    }
+}
@@ -0,0 +1,224 @@
+package com.vev;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Flow;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RankingChangeFeedTest {
+
+    private Ranking ranking;
+    private RankingChangeFeed feed;
+    private List<RankingDiff> received;
+
+    @BeforeEach
+    void setUp() {
+        ranking = new Ranking(5);
+        // entrega na própria thread do tick, para o teste ser determinístico
+        feed = new RankingChangeFeed(ranking::snapshot, Runnable::run, 16);
+        received = new ArrayList<>();
+        feed.subscribe(new Flow.Subscriber<RankingDiff>() {
+            @Override
+            public void onSubscribe(Flow.Subscription s) {
+                s.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(RankingDiff diff) {
+                received.add(diff);
+            }
+
+            @Override
+            public void onError(Throwable error) {
+                fail(error.toString());
+            }
+
+            @Override
+            public void onComplete() {
+            }
+        });
+    }
+
+    @Test
+    void testInsertedAndEvicted() {
+        Record a = new Record("A", 10);
+        Record b = new Record("B", 20);
+        ranking.add(a);
+        ranking.add(b);
+        RankingDiff first = feed.tick();
+        assertEquals(-1, first.fromVersion());
+        assertEquals(2, first.changes().size());
+        assertEquals(RankingChange.Type.INSERTED, first.changes().get(0).getType());
+        assertSame(b, first.changes().get(0).getRecord());
+        assertEquals(0, first.changes().get(0).getTo());
+
+        for (int i = 0; i < 4; i++) {
+            ranking.add(new Record("C" + i, 30 + i));
+        }
+        RankingDiff second = feed.tick();
+        assertEquals(first.toVersion(), second.fromVersion());
+        // A (pior) saiu; os quatro novos entraram no topo
+        long evicted = second.changes().stream().filter(c -> c.getType() == RankingChange.Type.EVICTED).count();
+        assertEquals(1, evicted);
+        assertSame(a, second.changes().get(0).getRecord());
+        assertEquals(1, second.changes().get(0).getFrom());
+        assertEquals(List.of(first, second), received);
+    }
+
+    // Ranking sem mudança não publica nada nem aloca um snapshot novo
+    @Test
+    void testUnchangedTickIsFree() {
+        ranking.add(new Record("A", 10));
+        feed.tick();
+        assertNull(feed.tick());
+        assertEquals(1, received.size());
+        assertSame(ranking.snapshot(), feed.current());
+    }
+
+    // Registros que entram e saem entre dois ticks não aparecem
+    @Test
+    void testCoalescedPerTick() {
+        ranking.add(new Record("A", 10));
+        feed.tick();
+        ranking.add(new Record("Temp", 1));
+        for (int i = 0; i < 5; i++) {
+            ranking.add(new Record("B" + i, 100 + i));
+        }
+        RankingDiff diff = feed.tick();
+        for (RankingChange change : diff.changes()) {
+            assertNotEquals("Temp", change.getRecord().getName());
+        }
+    }
+
+    // Mesmo jogador com score novo vira MOVED
+    @Test
+    void testMovedByName() {
+        ranking.add(new Record("A", 10));
+        ranking.add(new Record("B", 20));
+        ranking.add(new Record("C", 30));
+        ranking.add(new Record("D", 40));
+        ranking.add(new Record("E", 50));
+        feed.tick();
+        // A sobe com um registro novo e expulsa o próprio registro antigo
+        ranking.add(new Record("A", 45));
+        RankingDiff diff = feed.tick();
+        assertEquals(1, diff.changes().size());
+        RankingChange moved = diff.changes().get(0);
+        assertEquals(RankingChange.Type.MOVED, moved.getType());
+        assertEquals(4, moved.getFrom());
+        assertEquals(1, moved.getTo());
+        assertEquals(45, moved.getRecord().getScore());
+    }
+
+    // O mesmo Record inserido duas vezes são duas entradas: cada cópia entra
+    // e sai por conta própria
+    @Test
+    void testSameRecordTwice() {
+        Record a = new Record("A", 10);
+        ranking.add(a);
+        feed.tick();
+        ranking.add(a);
+        RankingDiff second = feed.tick();
+        assertEquals(1, second.changes().size());
+        assertEquals(RankingChange.Type.INSERTED, second.changes().get(0).getType());
+        assertEquals(1, second.changes().get(0).getTo());
+
+        for (int i = 0; i < 4; i++) {
+            ranking.add(new Record("B" + i, 20 + i));
+        }
+        RankingDiff third = feed.tick();
+        // a segunda cópia (a de trás) saiu; a primeira continua
+        RankingChange evicted = third.changes().get(0);
+        assertEquals(RankingChange.Type.EVICTED, evicted.getType());
+        assertSame(a, evicted.getRecord());
+        assertEquals(1, evicted.getFrom());
+        assertEquals(5, third.changes().size());
+        assertSame(a, ranking.snapshot().getScore(4));
+    }
+
+    // Quem só muda de posição porque outro entrou acima não gera mudança
+    @Test
+    void testShiftIsNotReported() {
+        ranking.add(new Record("A", 10));
+        ranking.add(new Record("B", 20));
+        feed.tick();
+        Record c = new Record("C", 30);
+        ranking.add(c);
+        RankingDiff diff = feed.tick();
+        assertEquals(1, diff.changes().size());
+        assertEquals(RankingChange.Type.INSERTED, diff.changes().get(0).getType());
+        assertSame(c, diff.changes().get(0).getRecord());
+        assertEquals(0, diff.changes().get(0).getTo());
+    }
+
+    // Um assinante que não consome não segura o tick nem os outros
+    // assinantes: as diferenças para ele são descartadas
+    @Test
+    void testSlowSubscriberDoesNotBlockTick() {
+        RankingChangeFeed small = new RankingChangeFeed(ranking::snapshot, Runnable::run, 1);
+        List<RankingDiff> fast = new ArrayList<>();
+        small.subscribe(subscriber(fast, Long.MAX_VALUE));
+        List<RankingDiff> slow = new ArrayList<>();
+        small.subscribe(subscriber(slow, 1));
+        for (int i = 0; i < 10; i++) {
+            ranking.add(new Record("P" + i, i));
+            assertNotNull(small.tick());
+        }
+        assertEquals(10, fast.size());
+        assertEquals(1, slow.size());
+        assertTrue(small.getDropped() > 0);
+        small.close();
+    }
+
+    // Aplicar as diferenças em ordem reconstrói cada snapshot
+    @Test
+    void testApplyingDiffsRebuildsRanking() {
+        Random random = new Random(21);
+        List<Record> client = new ArrayList<>();
+        for (int tick = 0; tick < 500; tick++) {
+            int adds = random.nextInt(4);
+            for (int i = 0; i < adds; i++) {
+                ranking.add(new Record("P" + random.nextInt(8), random.nextInt(50)));
+            }
+            RankingDiff diff = feed.tick();
+            if (diff != null) {
+                diff.applyTo(client);
+                assertEquals(diff.snapshot().asList(), client, "tick " + tick);
+            }
+        }
+    }
+
+    private static Flow.Subscriber<RankingDiff> subscriber(List<RankingDiff> received, long demand) {
+        return new Flow.Subscriber<RankingDiff>() {
+            @Override
+            public void onSubscribe(Flow.Subscription s) {
+                s.request(demand);
+            }
+
+            @Override
+            public void onNext(RankingDiff diff) {
+                received.add(diff);
+            }
+
+            @Override
+            public void onError(Throwable error) {
+                fail(error.toString());
+            }
+
+            @Override
+            public void onComplete() {
+            }
+        };
+    }
+
+    @Test
+    void testCloseCompletesSubscribers() {
+        feed.close();
+        ranking.add(new Record("A", 10));
+        assertThrows(IllegalStateException.class, feed::tick);
+    }
+}
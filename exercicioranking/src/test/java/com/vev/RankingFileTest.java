@@ -0,0 +1,238 @@
+package com.vev;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RankingFileTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testWriteAndMap() throws IOException {
+        Ranking ranking = new Ranking(100);
+        Random random = new Random(1);
+        for (int i = 0; i < 500; i++) {
+            ranking.add(new Record("Player" + i, random.nextInt(10_000)));
+        }
+        Path file = dir.resolve("ranking.bin");
+        RankingFile.write(ranking, file);
+
+        MappedRanking mapped = RankingFile.map(file);
+        assertEquals(100, mapped.capacity());
+        assertEquals(100, mapped.numRecords());
+        for (int i = 0; i < 100; i++) {
+            assertEquals(ranking.getScore(i).getScore(), mapped.scoreAt(i));
+            assertEquals(ranking.getScore(i).getName(), mapped.getScore(i).getName());
+        }
+        assertEquals(ranking.bestScore().getScore(), mapped.bestScore().getScore());
+        assertEquals(ranking.worstScore().getName(), mapped.worstScore().getName());
+        assertNull(mapped.getScore(100));
+        // o registro materializado é reaproveitado
+        assertSame(mapped.getScore(3), mapped.getScore(3));
+    }
+
+    @Test
+    void testNamesRoundTrip() throws IOException {
+        Ranking ranking = new Ranking();
+        ranking.add(new Record(null, 30));
+        ranking.add(new Record("", 20));
+        ranking.add(new Record("João Ñandú 🎮", 10));
+        Path file = dir.resolve("names.bin");
+        RankingFile.write(ranking, file);
+
+        MappedRanking mapped = RankingFile.map(file);
+        assertNull(mapped.getScore(0).getName());
+        assertEquals("", mapped.getScore(1).getName());
+        assertEquals("João Ñandú 🎮", mapped.getScore(2).getName());
+    }
+
+    @Test
+    void testEmptyRanking() throws IOException {
+        Path file = dir.resolve("empty.bin");
+        RankingFile.write(new Ranking(), file);
+
+        MappedRanking mapped = RankingFile.map(file);
+        assertEquals(0, mapped.numRecords());
+        assertNull(mapped.bestScore());
+        assertThrows(ArrayIndexOutOfBoundsException.class, () -> mapped.worstScore());
+    }
+
+    @Test
+    void testMappedIsReadOnly() {
+        assertFalse(Leaderboard.class.isAssignableFrom(MappedRanking.class));
+    }
+
+    // Cada posição é lida uma única vez, então nome e score vêm do mesmo registro
+    @Test
+    void testWriteReadsEachRecordOnce() throws IOException {
+        int[] reads = new int[3];
+        LeaderboardView view = new LeaderboardView() {
+            @Override
+            public int capacity() {
+                return 3;
+            }
+
+            @Override
+            public int numRecords() {
+                return 3;
+            }
+
+            @Override
+            public Record getScore(int i) {
+                if (i < 0 || i >= 3) {
+                    return null;
+                }
+                // cada leitura devolve um registro diferente, como um ranking que muda
+                reads[i]++;
+                return new Record("R" + i + "-" + reads[i], 100 * reads[i] - i);
+            }
+
+            @Override
+            public Record bestScore() {
+                return getScore(0);
+            }
+
+            @Override
+            public Record worstScore() {
+                return getScore(2);
+            }
+        };
+        Path file = dir.resolve("once.bin");
+        RankingFile.write(view, file);
+        assertArrayEquals(new int[] {1, 1, 1}, reads);
+        MappedRanking mapped = RankingFile.map(file);
+        for (int i = 0; i < 3; i++) {
+            assertEquals("R" + i + "-1", mapped.getScore(i).getName());
+            assertEquals(100 - i, mapped.getScore(i).getScore());
+        }
+    }
+
+    // Deslocamento de nome apontando para fora do arquivo
+    @Test
+    void testRejectsNameOutOfBounds() throws IOException {
+        Ranking ranking = new Ranking();
+        ranking.add(new Record("Player", 10));
+        Path file = dir.resolve("corrupt.bin");
+        RankingFile.write(ranking, file);
+        byte[] bytes = Files.readAllBytes(file);
+        // deslocamento do nome do primeiro slot
+        ByteBuffer.wrap(bytes).putInt(RankingFile.HEADER_SIZE + RankingFile.SLOT_NAME_OFFSET, 1 << 20);
+        Files.write(file, bytes);
+        MappedRanking mapped = RankingFile.map(file);
+        assertEquals(10, mapped.scoreAt(0));
+        assertThrows(IllegalStateException.class, () -> mapped.getScore(0));
+    }
+
+    // Slots fora da ordem decrescente não viram um Ranking
+    @Test
+    void testRejectsOutOfOrderSlots() throws IOException {
+        Ranking ranking = new Ranking();
+        ranking.add(new Record("A", 10));
+        ranking.add(new Record("B", 20));
+        Path file = dir.resolve("unordered.bin");
+        RankingFile.write(ranking, file);
+        byte[] bytes = Files.readAllBytes(file);
+        // score do segundo slot acima do primeiro
+        ByteBuffer.wrap(bytes).putInt(RankingFile.HEADER_SIZE + RankingFile.SLOT_SIZE, 30);
+        Files.write(file, bytes);
+        assertThrows(IllegalStateException.class, () -> RankingFile.load(file));
+    }
+
+    // Gravar um ConcurrentRanking enquanto outras threads inserem produz
+    // sempre um arquivo em ordem, sem registros repetidos
+    @Test
+    void testWriteWhileInserting() throws Exception {
+        ConcurrentRanking ranking = new ConcurrentRanking(50);
+        AtomicBoolean done = new AtomicBoolean();
+        Thread[] writers = new Thread[2];
+        for (int t = 0; t < writers.length; t++) {
+            int id = t;
+            writers[t] = new Thread(() -> {
+                Random random = new Random(id);
+                for (int i = 0; !done.get(); i++) {
+                    ranking.add(new Record("T" + id + "-" + i, random.nextInt(1_000_000)));
+                }
+            });
+            writers[t].start();
+        }
+        Path file = dir.resolve("live.bin");
+        try {
+            for (int round = 0; round < 200; round++) {
+                RankingFile.write(ranking, file);
+                Ranking loaded = RankingFile.load(file);
+                Set<String> names = new HashSet<>();
+                for (int i = 0; i < loaded.numRecords(); i++) {
+                    assertTrue(names.add(loaded.getScore(i).getName()), "repeated record at " + i);
+                }
+            }
+        } finally {
+            done.set(true);
+            for (Thread writer : writers) {
+                writer.join();
+            }
+        }
+    }
+
+    @Test
+    void testLoadContinuesAcceptingRecords() throws IOException {
+        Ranking ranking = new Ranking();
+        for (int i = 1; i <= 20; i++) {
+            ranking.add(new Record("Player" + i, i * 10));
+        }
+        Path file = dir.resolve("full.bin");
+        RankingFile.write(ranking, file);
+
+        Ranking loaded = RankingFile.load(file);
+        assertEquals(20, loaded.numRecords());
+        assertFalse(loaded.add(new Record("Low", 5)));
+        assertTrue(loaded.add(new Record("Equal", 10)));
+        assertEquals("Equal", loaded.worstScore().getName());
+        assertTrue(loaded.add(new Record("High", 500)));
+        assertEquals("High", loaded.bestScore().getName());
+    }
+
+    @Test
+    void testRejectsOtherFiles() throws IOException {
+        Path file = dir.resolve("other.bin");
+        Files.write(file, new byte[] {1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16});
+        assertThrows(IOException.class, () -> RankingFile.map(file));
+    }
+
+    @Test
+    void testTimestampsRoundTrip() throws IOException {
+        Ranking ranking = new Ranking(5);
+        for (int i = 0; i < 5; i++) {
+            ranking.add(new Record("P" + i, i * 10, 42 + i));
+        }
+        Path file = dir.resolve("times.bin");
+        RankingFile.write(ranking, file);
+        MappedRanking mapped = RankingFile.map(file);
+        Ranking loaded = RankingFile.load(file);
+        for (int i = 0; i < 5; i++) {
+            assertEquals(ranking.getScore(i).getTimestamp(), mapped.timestampAt(i));
+            assertEquals(ranking.getScore(i).getTimestamp(), mapped.getScore(i).getTimestamp());
+            assertEquals(ranking.getScore(i).getTimestamp(), loaded.getScore(i).getTimestamp());
+        }
+    }
+
+    @Test
+    void testRejectsOldVersion() throws IOException {
+        Path file = dir.resolve("v1.bin");
+        RankingFile.write(new Ranking(), file);
+        byte[] bytes = Files.readAllBytes(file);
+        ByteBuffer.wrap(bytes).putInt(4, 1);
+        Files.write(file, bytes);
+        assertThrows(IOException.class, () -> RankingFile.map(file));
+    }
+}
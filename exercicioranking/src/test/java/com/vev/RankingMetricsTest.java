@@ -0,0 +1,127 @@
+package com.vev;
+
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RankingMetricsTest {
+
+    private Ranking ranking;
+    private RankingMetrics metrics;
+
+    @BeforeEach
+    void setUp() {
+        ranking = new Ranking(3);
+        metrics = new RankingMetrics();
+        ranking.setMetrics(metrics);
+    }
+
+    @Test
+    void testCountsAcceptedRejectedEvicted() {
+        ranking.add(new Record("A", 10));
+        ranking.add(new Record("B", 20));
+        ranking.add(new Record("C", 30));
+        ranking.add(new Record("D", 5));
+        ranking.add(new Record("E", 40));
+        assertEquals(4, metrics.getAccepted());
+        assertEquals(1, metrics.getRejected());
+        assertEquals(1, metrics.getEvicted());
+        assertEquals(5, metrics.addLatency().count());
+        assertEquals(4, metrics.siftDistance().count());
+    }
+
+    // Registros que addAll pula por estarem abaixo do corte contam como rejeitados
+    @Test
+    void testAddAllCountsSkippedAsRejected() {
+        Record[] batch = {
+            new Record("A", 10), new Record("B", 20), new Record("C", 30),
+            new Record("D", 5), new Record("E", 40), new Record("F", 1)
+        };
+        assertEquals(3, ranking.addAll(batch));
+        assertEquals(3, metrics.getAccepted());
+        assertEquals(3, metrics.getRejected());
+        assertEquals(batch.length, metrics.getAccepted() + metrics.getRejected());
+    }
+
+    // Em capacidade 7 o heap tem 3 níveis: um registro novo melhor que todos
+    // desce da raiz até uma folha
+    @Test
+    void testSiftDistance() {
+        Ranking large = new Ranking(7);
+        large.setMetrics(metrics);
+        for (int i = 1; i <= 7; i++) {
+            large.add(new Record("R" + i, i * 10));
+        }
+        metrics.reset();
+        large.add(new Record("Top", 1000));
+        assertEquals(2, metrics.getSiftDistanceMax());
+        metrics.reset();
+        large.add(new Record("Low", 25));
+        assertEquals(0, metrics.getSiftDistanceMax());
+    }
+
+    // Sem métricas o comportamento é o mesmo
+    @Test
+    void testDisabledMetrics() {
+        ranking.setMetrics(null);
+        assertTrue(ranking.add(new Record("A", 10)));
+        assertNull(ranking.getMetrics());
+        assertEquals(0, metrics.getAccepted());
+    }
+
+    @Test
+    void testReset() {
+        ranking.add(new Record("A", 10));
+        metrics.reset();
+        assertEquals(0, metrics.getAccepted());
+        assertEquals(0, metrics.addLatency().count());
+        assertEquals(0, metrics.getAddLatencyMaxNanos());
+    }
+
+    @Test
+    void testRegisterMBean() throws Exception {
+        ObjectName name = metrics.register("test-" + System.nanoTime());
+        ranking.add(new Record("A", 10));
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        assertEquals(1L, server.getAttribute(name, "Accepted"));
+        server.unregisterMBean(name);
+    }
+
+    // Cada valor cai num balde cujos limites o contêm, com erro relativo < 12,5%
+    @Test
+    void testHistogramBuckets() {
+        Random random = new Random(9);
+        for (int n = 0; n < 100_000; n++) {
+            long value = random.nextLong() >>> (1 + random.nextInt(63));
+            int bucket = LogHistogram.bucketOf(value);
+            assertTrue(LogHistogram.lowerBound(bucket) <= value && value <= LogHistogram.upperBound(bucket),
+                    "value " + value + " bucket " + bucket);
+            long width = LogHistogram.upperBound(bucket) - LogHistogram.lowerBound(bucket);
+            assertTrue(width <= value / 8, "value " + value + " width " + width);
+        }
+        assertEquals(LogHistogram.BUCKETS - 1, LogHistogram.bucketOf(Long.MAX_VALUE));
+        assertEquals(0, LogHistogram.bucketOf(-5));
+    }
+
+    @Test
+    void testHistogramPercentiles() {
+        LogHistogram histogram = new LogHistogram();
+        assertEquals(0, histogram.valueAtPercentile(50));
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i);
+        }
+        assertEquals(1000, histogram.count());
+        long p50 = histogram.valueAtPercentile(50);
+        assertTrue(p50 >= 500 && p50 <= 500 * 9 / 8, "p50 " + p50);
+        long p99 = histogram.valueAtPercentile(99);
+        assertTrue(p99 >= 990 && p99 <= 990 * 9 / 8, "p99 " + p99);
+        assertTrue(histogram.max() >= 1000);
+        assertThrows(IllegalArgumentException.class, () -> histogram.valueAtPercentile(101));
+    }
+}
@@ -0,0 +1,196 @@
+package com.vev;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RankingRegistryTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testAddAndSnapshot() throws IOException {
+        RankingRegistry registry = new RankingRegistry(dir, 10, 1, 3);
+        assertNull(registry.snapshot("fase-1"));
+        assertFalse(registry.contains("fase-1"));
+        registry.add("fase-1", new Record("A", 10));
+        registry.add("fase-1", new Record("B", 30));
+        registry.add("fase-2", new Record("C", 20));
+        RankingSnapshot snapshot = registry.snapshot("fase-1");
+        assertEquals(2, snapshot.numRecords());
+        assertEquals("B", snapshot.bestScore().getName());
+        assertEquals(3, snapshot.capacity());
+        assertTrue(registry.contains("fase-2"));
+        assertEquals(2, registry.resident());
+    }
+
+    // Com uma stripe de 2 lugares, o menos usado recentemente sai para o disco
+    // e volta com o mesmo conteúdo
+    @Test
+    void testEvictsLeastRecentlyUsed() throws IOException {
+        RankingRegistry registry = new RankingRegistry(dir, 2, 1, 5);
+        registry.add("a", new Record("A", 1));
+        registry.add("b", new Record("B", 2));
+        registry.snapshot("a");
+        registry.add("c", new Record("C", 3));
+        assertEquals(1, registry.getEvictions());
+        assertEquals(2, registry.resident());
+
+        long misses = registry.getMisses();
+        registry.snapshot("a");
+        assertEquals(misses, registry.getMisses());
+        RankingSnapshot b = registry.snapshot("b");
+        assertEquals(misses + 1, registry.getMisses());
+        assertEquals(1, registry.getLoads());
+        assertEquals("B", b.bestScore().getName());
+        assertEquals(2, b.bestScore().getScore());
+    }
+
+    // Um ranking carregado e só lido sai do cache sem ser gravado de novo
+    @Test
+    void testCleanRankingIsNotRewritten() throws IOException {
+        RankingRegistry registry = new RankingRegistry(dir, 1, 1, 5);
+        registry.add("a", new Record("A", 1));
+        registry.add("b", new Record("B", 2));
+        assertEquals(1, registry.getWrites());
+        registry.snapshot("a");
+        registry.snapshot("b");
+        registry.snapshot("a");
+        // b saiu duas vezes (foi gravado na primeira), a saiu uma vez sem mudar
+        assertEquals(2, registry.getWrites());
+    }
+
+    @Test
+    void testFlushAndReopen() throws IOException {
+        try (RankingRegistry registry = new RankingRegistry(dir, 100)) {
+            for (int i = 0; i < 50; i++) {
+                registry.add("modo/" + (i % 5), new Record("P" + i, i));
+            }
+        }
+        RankingRegistry reopened = new RankingRegistry(dir, 100);
+        RankingSnapshot snapshot = reopened.snapshot("modo/3");
+        assertEquals(10, snapshot.numRecords());
+        assertEquals(48, snapshot.bestScore().getScore());
+        assertEquals(1, reopened.getLoads());
+    }
+
+    @Test
+    void testRemove() throws IOException {
+        RankingRegistry registry = new RankingRegistry(dir, 1, 1, 5);
+        registry.add("a", new Record("A", 1));
+        registry.add("b", new Record("B", 2));
+        assertTrue(registry.remove("a"));
+        assertTrue(registry.remove("b"));
+        assertFalse(registry.remove("b"));
+        assertNull(registry.snapshot("a"));
+        try (Stream<Path> files = Files.list(dir)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void testStats() throws IOException {
+        RankingRegistry registry = new RankingRegistry(dir, 10);
+        registry.add("a", new Record("A", 1));
+        registry.add("a", new Record("B", 2));
+        registry.add("a", new Record("C", 3));
+        registry.add("a", new Record("D", 4));
+        assertEquals(3, registry.getHits());
+        assertEquals(1, registry.getMisses());
+        assertEquals(0.75, registry.getHitRate(), 1e-9);
+        registry.resetStats();
+        assertEquals(0.0, registry.getHitRate(), 1e-9);
+    }
+
+    // Várias threads em muitos ids, com cache bem menor que o total: nenhum
+    // registro aceito se perde entre saídas e voltas do disco
+    @Test
+    void testConcurrentAccess() throws Exception {
+        RankingRegistry registry = new RankingRegistry(dir, 16, 4, 1000);
+        int threads = 4;
+        int ids = 64;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int seed = t;
+            futures.add(pool.submit(() -> {
+                Random random = new Random(seed);
+                for (int n = 0; n < 300; n++) {
+                    registry.add("r" + random.nextInt(ids), new Record("T" + seed, n));
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        pool.shutdown();
+        long total = 0;
+        for (int i = 0; i < ids; i++) {
+            RankingSnapshot snapshot = registry.snapshot("r" + i);
+            total += snapshot == null ? 0 : snapshot.numRecords();
+        }
+        assertEquals(threads * 300, total);
+        assertTrue(registry.getEvictions() > 0);
+        assertTrue(registry.resident() <= 16);
+    }
+
+    // withRanking que não altera o ranking também não provoca gravação
+    @Test
+    void testReadOnlyActionIsNotRewritten() throws IOException {
+        RankingRegistry registry = new RankingRegistry(dir, 1, 1, 5);
+        registry.add("a", new Record("A", 1));
+        registry.add("b", new Record("B", 2));
+        assertEquals(1, registry.getWrites());
+        assertEquals(1, (int) registry.withRanking("a", Ranking::numRecords));
+        assertEquals(2, registry.getWrites());
+        assertEquals(1, (int) registry.withRanking("b", Ranking::numRecords));
+        // a saiu sem mudar desde que foi carregado
+        assertEquals(2, registry.getWrites());
+        registry.withRanking("a", ranking -> ranking.add(new Record("A2", 3)));
+        registry.snapshot("b");
+        assertEquals(3, registry.getWrites());
+    }
+
+    // maxResident que não é potência de 2 nem múltiplo das stripes: o total
+    // em memória não passa dele
+    @Test
+    void testMaxResidentIsExact() throws IOException {
+        for (int maxResident : new int[] {3, 10, 21}) {
+            RankingRegistry registry = new RankingRegistry(dir.resolve("r" + maxResident), maxResident);
+            for (int i = 0; i < 200; i++) {
+                registry.add("id-" + i, new Record("P", i));
+                assertTrue(registry.resident() <= maxResident, "resident " + registry.resident());
+            }
+            assertEquals(maxResident, registry.resident());
+        }
+    }
+
+    @Test
+    void testInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new RankingRegistry(dir, 0));
+        assertThrows(IllegalArgumentException.class, () -> new RankingRegistry(dir, 10, 0, 5));
+        assertThrows(IllegalArgumentException.class, () -> new RankingRegistry(dir, 10, 4, 0));
+    }
+
+    // Sair do cache e voltar do disco preserva o instante dos registros
+    @Test
+    void testEvictionKeepsTimestamps() throws IOException {
+        RankingRegistry registry = new RankingRegistry(dir, 1, 1, 5);
+        registry.add("a", new Record("A", 1, 42));
+        registry.add("b", new Record("B", 2, 43));
+        assertEquals(42, registry.snapshot("a").bestScore().getTimestamp());
+        assertEquals(1, registry.getLoads());
+    }
+}
@@ -0,0 +1,134 @@
+package com.vev;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RankingSnapshotTest {
+
+    @Test
+    void testSnapshotMatchesRanking() {
+        Ranking ranking = new Ranking(5);
+        Random random = new Random(4);
+        for (int i = 0; i < 50; i++) {
+            ranking.add(new Record("R" + i, random.nextInt(100)));
+        }
+        RankingSnapshot snapshot = ranking.snapshot();
+        assertEquals(ranking.numRecords(), snapshot.numRecords());
+        assertEquals(ranking.capacity(), snapshot.capacity());
+        for (int i = 0; i < ranking.numRecords(); i++) {
+            assertSame(ranking.getScore(i), snapshot.getScore(i));
+        }
+        assertSame(ranking.bestScore(), snapshot.bestScore());
+        assertSame(ranking.worstScore(), snapshot.worstScore());
+        assertNull(snapshot.getScore(5));
+    }
+
+    // Sem escrita entre as chamadas, o mesmo objeto
+    @Test
+    void testSnapshotReusedUntilChange() {
+        Ranking ranking = new Ranking(3);
+        ranking.add(new Record("A", 10));
+        RankingSnapshot first = ranking.snapshot();
+        assertSame(first, ranking.snapshot());
+        ranking.add(new Record("B", 20));
+        RankingSnapshot second = ranking.snapshot();
+        assertNotSame(first, second);
+        assertTrue(second.version() > first.version());
+        // o snapshot antigo não muda
+        assertEquals(1, first.numRecords());
+        assertEquals(2, second.numRecords());
+    }
+
+    // Registro rejeitado não muda a versão
+    @Test
+    void testRejectedAddKeepsSnapshot() {
+        Ranking ranking = new Ranking(1);
+        ranking.add(new Record("A", 10));
+        RankingSnapshot snapshot = ranking.snapshot();
+        assertFalse(ranking.add(new Record("B", 5)));
+        assertSame(snapshot, ranking.snapshot());
+    }
+
+    @Test
+    void testSnapshotAfterMerge() {
+        Ranking a = new Ranking(3);
+        a.add(new Record("A", 10));
+        RankingSnapshot before = a.snapshot();
+        Ranking b = new Ranking(3);
+        b.add(new Record("B", 20));
+        a.merge(b);
+        RankingSnapshot after = a.snapshot();
+        assertNotSame(before, after);
+        assertEquals("B", after.bestScore().getName());
+    }
+
+    @Test
+    void testEmptySnapshot() {
+        RankingSnapshot snapshot = new Ranking().snapshot();
+        assertEquals(0, snapshot.numRecords());
+        assertNull(snapshot.bestScore());
+        assertThrows(ArrayIndexOutOfBoundsException.class, snapshot::worstScore);
+        assertTrue(snapshot.asList().isEmpty());
+    }
+
+    @Test
+    void testSnapshotIsReadOnly() {
+        Ranking ranking = new Ranking();
+        ranking.add(new Record("A", 10));
+        RankingSnapshot snapshot = ranking.snapshot();
+        assertFalse(Leaderboard.class.isAssignableFrom(RankingSnapshot.class));
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.asList().set(0, null));
+    }
+
+    // Leitores em outras threads nunca veem um estado pela metade: cada
+    // snapshot tem que estar ordenado, sem posições vazias e com o número de
+    // registros que a versão indica
+    @Test
+    void testConcurrentReadersSeeConsistentSnapshots() throws Exception {
+        int capacity = 64;
+        Ranking ranking = new Ranking(capacity);
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicReference<String> failure = new AtomicReference<>();
+        Thread[] readers = new Thread[3];
+        for (int r = 0; r < readers.length; r++) {
+            readers[r] = new Thread(() -> {
+                long lastVersion = -1;
+                while (!done.get() && failure.get() == null) {
+                    RankingSnapshot snapshot = ranking.snapshot();
+                    if (snapshot.version() < lastVersion) {
+                        failure.set("version went back");
+                    }
+                    lastVersion = snapshot.version();
+                    // cada inserção aceita soma 2 à versão; as primeiras enchem o ranking
+                    long inserts = snapshot.version() / 2;
+                    if (snapshot.numRecords() != Math.min(inserts, capacity)) {
+                        failure.set("size " + snapshot.numRecords() + " at version " + snapshot.version());
+                    }
+                    List<Record> records = snapshot.asList();
+                    for (int i = 0; i < records.size(); i++) {
+                        if (records.get(i) == null
+                                || (i > 0 && records.get(i - 1).getScore() < records.get(i).getScore())) {
+                            failure.set("torn snapshot at version " + snapshot.version());
+                        }
+                    }
+                }
+            });
+            readers[r].start();
+        }
+        Random random = new Random(8);
+        for (int i = 0; i < 300_000; i++) {
+            // todo score é aceito: o ranking só recebe scores crescentes
+            ranking.add(new Record("R" + i, i + random.nextInt(2)));
+        }
+        done.set(true);
+        for (Thread reader : readers) {
+            reader.join();
+        }
+        assertNull(failure.get());
+    }
+}
@@ -1,5 +1,16 @@
 package com.vev;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.*;
@@ -449,4 +460,354 @@ public class RankingTest {
         assertNotNull(best);
         assertEquals(25, best.getScore());
     }
-}
\ No newline at end of file
+
+    // Testes para rankings com capacidade configurável
+    @Test
+    void testDefaultCapacity() {
+        assertEquals(Ranking.DEFAULT_CAPACITY, ranking.capacity());
+    }
+
+    @Test
+    void testInvalidCapacity() {
+        assertThrows(IllegalArgumentException.class, () -> new Ranking(0));
+        assertThrows(IllegalArgumentException.class, () -> new Ranking(-5));
+    }
+
+    @Test
+    void testCustomCapacityLimit() {
+        Ranking top3 = new Ranking(3);
+        assertTrue(top3.add(new Record("A", 10)));
+        assertTrue(top3.add(new Record("B", 30)));
+        assertTrue(top3.add(new Record("C", 20)));
+        assertFalse(top3.add(new Record("D", 5)));
+        assertTrue(top3.add(new Record("E", 25)));
+
+        assertEquals(3, top3.numRecords());
+        assertEquals("B", top3.getScore(0).getName());
+        assertEquals("E", top3.getScore(1).getName());
+        assertEquals("C", top3.getScore(2).getName());
+        assertEquals("C", top3.worstScore().getName());
+    }
+
+    @Test
+    void testCapacityOne() {
+        Ranking top1 = new Ranking(1);
+        assertTrue(top1.add(new Record("A", 10)));
+        assertFalse(top1.add(new Record("B", 9)));
+        assertTrue(top1.add(new Record("C", 10)));
+        assertEquals("C", top1.bestScore().getName());
+        assertEquals("C", top1.worstScore().getName());
+    }
+
+    @Test
+    void testTiesKeepArrivalOrder() {
+        Ranking top3 = new Ranking(3);
+        top3.add(new Record("A", 100));
+        top3.add(new Record("B", 100));
+        top3.add(new Record("C", 100));
+
+        // Score igual ao pior substitui o último a ter chegado
+        assertTrue(top3.add(new Record("D", 100)));
+        assertEquals("A", top3.getScore(0).getName());
+        assertEquals("B", top3.getScore(1).getName());
+        assertEquals("D", top3.getScore(2).getName());
+    }
+
+    // Compara com uma implementação de referência (lista ordenada com deslocamento)
+    @Test
+    void testLargeCapacityMatchesReference() {
+        int capacity = 1000;
+        Ranking big = new Ranking(capacity);
+        List<Record> reference = new ArrayList<>();
+        Random random = new Random(42);
+
+        for (int n = 0; n < 20000; n++) {
+            Record record = new Record("P" + n, random.nextInt(5000));
+            boolean expected = reference.size() < capacity
+                    || record.getScore() >= reference.get(reference.size() - 1).getScore();
+            if (expected) {
+                if (reference.size() == capacity) {
+                    reference.remove(reference.size() - 1);
+                }
+                int i = 0;
+                while (i < reference.size() && reference.get(i).getScore() >= record.getScore()) {
+                    i++;
+                }
+                reference.add(i, record);
+            }
+            assertEquals(expected, big.add(record));
+            if (n % 997 == 0) {
+                assertSame(reference.get(reference.size() - 1), big.worstScore());
+            }
+        }
+
+        assertEquals(capacity, big.numRecords());
+        for (int i = 0; i < capacity; i++) {
+            assertSame(reference.get(i), big.getScore(i), "posição " + i);
+        }
+    }
+
+    // Testes para inserção em lote
+    @Test
+    void testAddAllArray() {
+        Record[] batch = {
+            new Record("A", 100), new Record("B", 300), new Record("C", 200)
+        };
+        assertEquals(3, ranking.addAll(batch));
+        assertEquals(3, ranking.numRecords());
+        assertEquals("B", ranking.getScore(0).getName());
+        assertEquals("C", ranking.getScore(1).getName());
+        assertEquals("A", ranking.getScore(2).getName());
+    }
+
+    @Test
+    void testAddAllEmptyBatch() {
+        ranking.add(new Record("A", 100));
+        assertEquals(0, ranking.addAll(new Record[0]));
+        assertEquals(1, ranking.numRecords());
+    }
+
+    @Test
+    void testAddAllCountsOnlySurvivors() {
+        for (int i = 1; i <= 20; i++) {
+            ranking.add(new Record("Player" + i, i * 10));
+        }
+        // 5 abaixo do piso, 25 acima: só 20 dos acima sobrevivem
+        List<Record> batch = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            batch.add(new Record("Low" + i, 1));
+        }
+        for (int i = 0; i < 25; i++) {
+            batch.add(new Record("High" + i, 1000 + i));
+        }
+        assertEquals(20, ranking.addAll(batch));
+        assertEquals(1024, ranking.bestScore().getScore());
+        assertEquals(1005, ranking.worstScore().getScore());
+    }
+
+    @Test
+    void testAddAllStream() {
+        assertEquals(2, ranking.addAll(Arrays.asList(new Record("A", 1), new Record("B", 2)).stream()));
+        assertEquals("B", ranking.bestScore().getName());
+    }
+
+    // O resultado do lote deve ser idêntico ao de inserções individuais,
+    // inclusive na ordem dos empates
+    @Test
+    void testAddAllMatchesSequentialAdds() {
+        Random random = new Random(11);
+        for (int round = 0; round < 20; round++) {
+            int capacity = 1 + random.nextInt(50);
+            Ranking batched = new Ranking(capacity);
+            Ranking sequential = new Ranking(capacity);
+            for (int b = 0; b < 5; b++) {
+                Record[] batch = new Record[random.nextInt(200)];
+                for (int i = 0; i < batch.length; i++) {
+                    batch[i] = new Record("R" + round + "-" + b + "-" + i, random.nextInt(30));
+                }
+                for (Record record : batch) {
+                    sequential.add(record);
+                }
+                batched.addAll(batch);
+                assertSameContents(sequential, batched);
+            }
+        }
+    }
+
+    @Test
+    void testAddAllParallelMatchesSequentialAdds() {
+        Random random = new Random(5);
+        Ranking batched = new Ranking(1000);
+        Ranking sequential = new Ranking(1000);
+        Record[] batch = new Record[Ranking.PARALLEL_THRESHOLD * 4];
+        for (int i = 0; i < batch.length; i++) {
+            batch[i] = new Record("P" + i, random.nextInt(100_000));
+        }
+        for (Record record : batch) {
+            sequential.add(record);
+        }
+        assertEquals(1000, batched.addAll(Arrays.stream(batch).parallel()));
+        assertSameContents(sequential, batched);
+    }
+
+    private static void assertSameContents(Ranking expected, Ranking actual) {
+        assertEquals(expected.numRecords(), actual.numRecords());
+        for (int i = 0; i < expected.numRecords(); i++) {
+            assertSame(expected.getScore(i), actual.getScore(i), "posição " + i);
+        }
+    }
+
+    // Testes para junção de rankings
+    @Test
+    void testMerge() {
+        Ranking other = new Ranking();
+        ranking.add(new Record("A", 300));
+        ranking.add(new Record("B", 100));
+        other.add(new Record("C", 200));
+        other.add(new Record("D", 100));
+
+        assertSame(ranking, ranking.merge(other));
+        assertEquals(4, ranking.numRecords());
+        assertEquals("A", ranking.getScore(0).getName());
+        assertEquals("C", ranking.getScore(1).getName());
+        // empate: o registro deste ranking vem antes
+        assertEquals("B", ranking.getScore(2).getName());
+        assertEquals("D", ranking.getScore(3).getName());
+        assertEquals("D", ranking.worstScore().getName());
+    }
+
+    @Test
+    void testMergeKeepsCapacity() {
+        Ranking other = new Ranking();
+        for (int i = 1; i <= 20; i++) {
+            ranking.add(new Record("A" + i, i * 10));
+            other.add(new Record("B" + i, i * 10 + 5));
+        }
+        ranking.merge(other);
+        assertEquals(20, ranking.numRecords());
+        assertEquals(205, ranking.bestScore().getScore());
+        assertEquals(110, ranking.worstScore().getScore());
+
+        // o ranking continua funcionando normalmente depois da junção
+        assertFalse(ranking.add(new Record("Low", 100)));
+        assertTrue(ranking.add(new Record("High", 1000)));
+        assertEquals(115, ranking.worstScore().getScore());
+    }
+
+    @Test
+    void testMergeWithItself() {
+        assertThrows(IllegalArgumentException.class, () -> ranking.merge(ranking));
+    }
+
+    @Test
+    void testMergeAll() {
+        Random random = new Random(13);
+        List<Ranking> shards = new ArrayList<>();
+        List<Integer> allScores = new ArrayList<>();
+        for (int s = 0; s < 8; s++) {
+            Ranking shard = new Ranking(50);
+            for (int i = 0; i < 200; i++) {
+                int score = random.nextInt(10_000);
+                shard.add(new Record("S" + s + "-" + i, score));
+                allScores.add(score);
+            }
+            shards.add(shard);
+        }
+
+        Ranking global = Ranking.mergeAll(shards);
+        assertEquals(50, global.capacity());
+        assertEquals(50, global.numRecords());
+        allScores.sort(Collections.reverseOrder());
+        for (int i = 0; i < 50; i++) {
+            assertEquals(allScores.get(i).intValue(), global.getScore(i).getScore(), "posição " + i);
+        }
+    }
+
+    @Test
+    void testMergeAllEmpty() {
+        Ranking global = Ranking.mergeAll(Collections.emptyList(), 10);
+        assertEquals(0, global.numRecords());
+        assertEquals(10, global.capacity());
+    }
+
+    @Test
+    void testToTopKCollector() {
+        Random random = new Random(17);
+        List<Record> records = new ArrayList<>();
+        for (int i = 0; i < 100_000; i++) {
+            records.add(new Record("P" + i, random.nextInt()));
+        }
+        Ranking parallel = records.parallelStream().collect(Ranking.toTopK(100));
+        List<Integer> expected = records.stream()
+                .map(Record::getScore)
+                .sorted(Collections.reverseOrder())
+                .limit(100)
+                .collect(Collectors.toList());
+
+        assertEquals(100, parallel.numRecords());
+        for (int i = 0; i < 100; i++) {
+            assertEquals(expected.get(i).intValue(), parallel.getScore(i).getScore());
+        }
+    }
+
+    // Testes para range(), recordsWithScoreBetween() e a iteração
+    @Test
+    void testRange() {
+        for (int i = 1; i <= 10; i++) {
+            ranking.add(new Record("P" + i, i * 10));
+        }
+        List<Record> page = ranking.range(2, 5);
+        assertEquals(3, page.size());
+        assertEquals(80, page.get(0).getScore());
+        assertEquals(60, page.get(2).getScore());
+        assertTrue(ranking.range(4, 4).isEmpty());
+        assertThrows(IndexOutOfBoundsException.class, () -> ranking.range(5, 11));
+        assertThrows(IndexOutOfBoundsException.class, () -> ranking.range(-1, 2));
+        assertThrows(IndexOutOfBoundsException.class, () -> ranking.range(3, 2));
+        assertThrows(UnsupportedOperationException.class, () -> page.set(0, new Record("X", 1)));
+    }
+
+    // A visão não é cópia: depois de uma inserção ela deixa de valer
+    @Test
+    void testRangeInvalidatedByAdd() {
+        ranking.add(new Record("A", 10));
+        ranking.add(new Record("B", 20));
+        List<Record> page = ranking.range(0, 2);
+        Iterator<Record> iterator = ranking.iterator();
+        iterator.next();
+        ranking.add(new Record("C", 30));
+        assertThrows(ConcurrentModificationException.class, () -> page.get(0));
+        assertThrows(ConcurrentModificationException.class, iterator::next);
+        assertEquals(30, ranking.range(0, 1).get(0).getScore());
+    }
+
+    @Test
+    void testRecordsWithScoreBetween() {
+        Random random = new Random(23);
+        Ranking large = new Ranking(200);
+        List<Record> all = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            Record record = new Record("P" + i, random.nextInt(500) - 250);
+            all.add(record);
+            large.add(record);
+        }
+        List<Record> kept = new ArrayList<>();
+        large.forEach(kept::add);
+        for (int n = 0; n < 200; n++) {
+            int lo = random.nextInt(600) - 300;
+            int hi = lo + random.nextInt(100);
+            List<Record> expected = kept.stream()
+                    .filter(r -> r.getScore() >= lo && r.getScore() <= hi)
+                    .collect(Collectors.toList());
+            assertEquals(expected, large.recordsWithScoreBetween(lo, hi), "[" + lo + ", " + hi + "]");
+        }
+        assertTrue(large.recordsWithScoreBetween(10, 5).isEmpty());
+        assertEquals(kept, large.recordsWithScoreBetween(Integer.MIN_VALUE, Integer.MAX_VALUE));
+    }
+
+    @Test
+    void testIteratorAndParallelStream() {
+        Ranking large = new Ranking(1000);
+        for (int i = 0; i < 5000; i++) {
+            large.add(new Record("P" + i, i));
+        }
+        int expected = 4999;
+        for (Record record : large) {
+            assertEquals(expected--, record.getScore());
+        }
+        Spliterator<Record> spliterator = large.spliterator();
+        assertEquals(1000, spliterator.getExactSizeIfKnown());
+        assertTrue(spliterator.hasCharacteristics(Spliterator.ORDERED | Spliterator.SUBSIZED));
+        Spliterator<Record> prefix = spliterator.trySplit();
+        assertNotNull(prefix);
+        assertEquals(500, prefix.getExactSizeIfKnown());
+
+        List<Integer> scores = StreamSupport.stream(large.spliterator(), true)
+                .map(Record::getScore)
+                .collect(Collectors.toList());
+        assertEquals(1000, scores.size());
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(4999 - i, scores.get(i).intValue());
+        }
+    }
+}
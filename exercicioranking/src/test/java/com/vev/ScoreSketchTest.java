@@ -0,0 +1,237 @@
+package com.vev;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ScoreSketchTest {
+
+    // Scores pequenos têm balde próprio: posição e percentil exatos
+    @Test
+    void testExactForSmallScores() {
+        ScoreSketch sketch = new ScoreSketch();
+        for (int score = -10; score < 10; score++) {
+            sketch.record(score);
+        }
+        assertEquals(20, sketch.count());
+        assertEquals(1, sketch.estimatedRank(9));
+        assertEquals(20, sketch.estimatedRank(-10));
+        assertEquals(11, sketch.estimatedRank(-1));
+        assertEquals(50.0, sketch.percentile(-1), 1e-9);
+        assertEquals(100.0, sketch.percentile(100), 1e-9);
+    }
+
+    // Com milhões de scores, a estimativa fica dentro do erro da precisão
+    @Test
+    void testRankErrorWithinPrecision() {
+        Random random = new Random(12);
+        int n = 1_000_000;
+        int[] scores = new int[n];
+        ScoreSketch sketch = new ScoreSketch();
+        for (int i = 0; i < n; i++) {
+            scores[i] = (int) Math.abs(random.nextGaussian() * 100_000);
+            sketch.record(scores[i]);
+        }
+        Arrays.sort(scores);
+        for (int q = 1; q < 100; q++) {
+            int score = scores[n * q / 100];
+            // posição exata: 1 + quantos são maiores
+            int above = n - upperIndex(scores, score);
+            long estimate = sketch.estimatedRank(score);
+            // erro na posição limitado pelos scores a até 2^-5 do score
+            int window = upperIndex(scores, score + score / 32) - upperIndex(scores, score - score / 32 - 1);
+            assertTrue(Math.abs(estimate - (above + 1)) <= window, "score " + score + ": " + estimate + " vs " + (above + 1));
+        }
+    }
+
+    private static int upperIndex(int[] sorted, int score) {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sorted[mid] <= score) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    @Test
+    void testExtremeScores() {
+        ScoreSketch sketch = new ScoreSketch();
+        sketch.record(Integer.MIN_VALUE);
+        sketch.record(Integer.MAX_VALUE);
+        sketch.record(0);
+        assertEquals(1, sketch.estimatedRank(Integer.MAX_VALUE));
+        assertEquals(2, sketch.estimatedRank(0));
+        // balde largo: a interpolação pode errar pelo próprio registro do balde
+        long last = sketch.estimatedRank(Integer.MIN_VALUE);
+        assertTrue(last == 3 || last == 4, "rank " + last);
+        // limites dos baldes cobrem o int inteiro
+        assertEquals(Integer.MIN_VALUE, sketch.lowerBound(sketch.bucketOf(Integer.MIN_VALUE)));
+        assertEquals(Integer.MAX_VALUE, sketch.upperBound(sketch.bucketOf(Integer.MAX_VALUE)));
+    }
+
+    @Test
+    void testBucketsAreOrdered() {
+        ScoreSketch sketch = new ScoreSketch(3);
+        Random random = new Random(2);
+        for (int i = 0; i < 100_000; i++) {
+            int score = random.nextInt() >> random.nextInt(32);
+            int bucket = sketch.bucketOf(score);
+            assertTrue(sketch.lowerBound(bucket) <= score && score <= sketch.upperBound(bucket), "score " + score);
+            if (bucket > 0) {
+                assertEquals(sketch.upperBound(bucket - 1) + 1, sketch.lowerBound(bucket));
+            }
+        }
+    }
+
+    // Juntar os resumos de dois shards dá o mesmo que um resumo de tudo
+    @Test
+    void testMerge() {
+        ScoreSketch a = new ScoreSketch();
+        ScoreSketch b = new ScoreSketch();
+        ScoreSketch all = new ScoreSketch();
+        Random random = new Random(6);
+        for (int i = 0; i < 10_000; i++) {
+            int score = random.nextInt(1_000_000);
+            (i % 2 == 0 ? a : b).record(score);
+            all.record(score);
+        }
+        a.merge(b);
+        assertEquals(all.count(), a.count());
+        for (int score = 0; score < 1_000_000; score += 9_999) {
+            assertEquals(all.estimatedRank(score), a.estimatedRank(score));
+        }
+        assertThrows(IllegalArgumentException.class, () -> a.merge(new ScoreSketch(4)));
+    }
+
+    @Test
+    void testEmptySketch() {
+        ScoreSketch sketch = new ScoreSketch();
+        assertEquals(1, sketch.estimatedRank(10));
+        assertEquals(0.0, sketch.percentile(10));
+        assertThrows(IllegalArgumentException.class, () -> new ScoreSketch(0));
+    }
+
+    // Ranking: exato no top-K, estimativa do resumo abaixo do pior
+    @Test
+    void testRankingEstimatedRank() {
+        Ranking ranking = new Ranking(3);
+        ranking.setScoreSketch(new ScoreSketch());
+        for (int score = 1; score <= 10; score++) {
+            ranking.add(new Record("P" + score, score));
+        }
+        assertEquals(1, ranking.estimatedRank(10));
+        assertEquals(3, ranking.estimatedRank(8));
+        assertEquals(4, ranking.estimatedRank(7));
+        assertEquals(8, ranking.estimatedRank(3));
+        assertEquals(30.0, ranking.percentile(3), 1e-9);
+        assertEquals(10, ranking.getScoreSketch().count());
+    }
+
+    @Test
+    void testRankingNotFullIsExactWithoutSketch() {
+        Ranking ranking = new Ranking(10);
+        ranking.add(new Record("A", 10));
+        ranking.add(new Record("B", 20));
+        assertEquals(2, ranking.estimatedRank(10));
+        assertEquals(3, ranking.estimatedRank(5));
+        assertEquals(50.0, ranking.percentile(10), 1e-9);
+        assertEquals(0.0, new Ranking().percentile(10), 1e-9);
+    }
+
+    @Test
+    void testRankingFullWithoutSketch() {
+        Ranking ranking = new Ranking(1);
+        ranking.add(new Record("A", 10));
+        assertEquals(1, ranking.estimatedRank(10));
+        assertThrows(IllegalStateException.class, () -> ranking.estimatedRank(5));
+        assertThrows(IllegalStateException.class, () -> ranking.percentile(5));
+    }
+
+    // addAll também alimenta o resumo com os registros que descarta
+    @Test
+    void testAddAllFeedsSketch() {
+        Ranking ranking = new Ranking(2);
+        ranking.setScoreSketch(new ScoreSketch());
+        Record[] batch = new Record[100];
+        for (int i = 0; i < batch.length; i++) {
+            batch[i] = new Record("P" + i, i);
+        }
+        ranking.addAll(batch);
+        assertEquals(100, ranking.getScoreSketch().count());
+        assertEquals(51, ranking.estimatedRank(49));
+    }
+
+    @Test
+    void testMergeAllCombinesSketches() {
+        Ranking a = new Ranking(2);
+        Ranking b = new Ranking(2);
+        a.setScoreSketch(new ScoreSketch());
+        b.setScoreSketch(new ScoreSketch());
+        for (int i = 0; i < 10; i++) {
+            a.add(new Record("A" + i, i));
+            b.add(new Record("B" + i, 100 + i));
+        }
+        Ranking merged = Ranking.mergeAll(List.of(a, b));
+        assertEquals(20, merged.getScoreSketch().count());
+        assertEquals(11, merged.estimatedRank(9));
+        // os resumos originais não mudam
+        assertEquals(10, a.getScoreSketch().count());
+
+        a.merge(b);
+        assertEquals(20, a.getScoreSketch().count());
+    }
+
+    // Juntar um ranking sem resumo descarta o resumo, que não contaria os
+    // scores do outro
+    @Test
+    void testMergeWithoutSketchDropsSketch() {
+        Ranking a = new Ranking(2);
+        Ranking b = new Ranking(2);
+        a.setScoreSketch(new ScoreSketch());
+        for (int i = 0; i < 10; i++) {
+            a.add(new Record("A" + i, i));
+            b.add(new Record("B" + i, 100 + i));
+        }
+        a.merge(b);
+        assertNull(a.getScoreSketch());
+        assertThrows(IllegalStateException.class, () -> a.percentile(5));
+        assertEquals(1, a.estimatedRank(109));
+    }
+
+    // Consultas logo depois de inserções respondem pelo heap, sem reordenar
+    @Test
+    void testRankQueriesDoNotSortView() throws Exception {
+        Field sortedValid = Ranking.class.getDeclaredField("sortedValid");
+        sortedValid.setAccessible(true);
+        Ranking ranking = new Ranking(50);
+        ranking.setScoreSketch(new ScoreSketch());
+        Random random = new Random(5);
+        List<Integer> scores = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            int score = random.nextInt(100);
+            ranking.add(new Record("P" + i, score));
+            scores.add(score);
+            int query = random.nextInt(100);
+            if (i < 49) {
+                long above = scores.stream().filter(s -> s > query).count();
+                assertEquals(1 + above, ranking.estimatedRank(query));
+                assertEquals(100.0 * (scores.size() - above) / scores.size(), ranking.percentile(query), 1e-9);
+            } else {
+                int worst = ranking.worstScore().getScore();
+                long above = scores.stream().filter(s -> s > worst).count();
+                assertEquals(1 + above, ranking.estimatedRank(worst));
+            }
+            assertFalse((boolean) sortedValid.get(ranking));
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.vev;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WindowedRankingTest {
+
+    private static final long MINUTE = 60_000;
+
+    private long now;
+    private WindowedRanking ranking;
+
+    @BeforeEach
+    void setUp() {
+        now = 100 * 60 * MINUTE;
+        // última hora, em fatias de 10 minutos
+        ranking = new WindowedRanking(3, Duration.ofHours(1), 6, () -> now);
+    }
+
+    @Test
+    void testRecordsInsideWindow() {
+        assertTrue(ranking.add(new Record("A", 100, now)));
+        assertTrue(ranking.add(new Record("B", 300, now - 15 * MINUTE)));
+        assertTrue(ranking.add(new Record("C", 200, now - 45 * MINUTE)));
+
+        assertEquals(3, ranking.numRecords());
+        assertEquals("B", ranking.getScore(0).getName());
+        assertEquals("C", ranking.getScore(1).getName());
+        assertEquals("A", ranking.getScore(2).getName());
+    }
+
+    @Test
+    void testRejectsRecordsOutsideWindow() {
+        assertFalse(ranking.add(new Record("Old", 100, now - 2 * 60 * MINUTE)));
+        assertFalse(ranking.add(new Record("Future", 100, now + 20 * MINUTE)));
+        assertEquals(0, ranking.numRecords());
+        assertNull(ranking.bestScore());
+    }
+
+    @Test
+    void testExpiryPromotesNextBest() {
+        ranking.add(new Record("Old1", 900, now - 45 * MINUTE));
+        ranking.add(new Record("Old2", 800, now - 45 * MINUTE));
+        ranking.add(new Record("New1", 300, now));
+        ranking.add(new Record("New2", 200, now));
+        ranking.add(new Record("New3", 100, now));
+
+        assertEquals("Old1", ranking.bestScore().getName());
+        assertEquals("New1", ranking.worstScore().getName());
+
+        // avança 20 minutos: a fatia dos registros antigos sai da janela
+        now += 20 * MINUTE;
+        assertEquals(3, ranking.numRecords());
+        assertEquals("New1", ranking.getScore(0).getName());
+        assertEquals("New2", ranking.getScore(1).getName());
+        assertEquals("New3", ranking.getScore(2).getName());
+    }
+
+    @Test
+    void testWholeWindowExpires() {
+        ranking.add(new Record("A", 100, now));
+        now += 2 * 60 * MINUTE;
+        assertEquals(0, ranking.numRecords());
+        assertThrows(ArrayIndexOutOfBoundsException.class, () -> ranking.worstScore());
+    }
+
+    @Test
+    void testBucketSlotIsReused() {
+        ranking.add(new Record("A", 500, now));
+        now += 60 * MINUTE;
+        // mesma posição do anel, fatia nova: o registro antigo não reaparece
+        assertTrue(ranking.add(new Record("B", 100, now)));
+        assertEquals(1, ranking.numRecords());
+        assertEquals("B", ranking.bestScore().getName());
+    }
+
+    @Test
+    void testInvalidConfiguration() {
+        assertThrows(IllegalArgumentException.class, () -> new WindowedRanking(0, Duration.ofHours(1), 6));
+        assertThrows(IllegalArgumentException.class, () -> new WindowedRanking(10, Duration.ofHours(1), 0));
+    }
+}